@@ -0,0 +1,76 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.benchmark;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yakovlev.alexander.model.Captcha;
+import ru.yakovlev.alexander.model.Client;
+import ru.yakovlev.alexander.model.dto.CaptchaCheckResult;
+
+/**
+ * Captcha answer check benchmark.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class CaptchaCheckBenchmark {
+    private final UUID clientId = UUID
+        .fromString("7f000101-6e06-121f-816e-06ce2f660000");
+    private final Captcha captcha = new Captcha(
+        1L, new Client(this.clientId, this.clientId, 0),
+        "q7fz2k", LocalDateTime.now(ZoneOffset.UTC), false, 0
+    );
+
+    @Benchmark
+    public CaptchaCheckResult rightAnswer() {
+        return this.captcha.check("q7fz2k");
+    }
+
+    @Benchmark
+    public CaptchaCheckResult wrongAnswer() {
+        return this.captcha.check("q7fz2x");
+    }
+
+    @Benchmark
+    public CaptchaCheckResult wrongLength() {
+        return this.captcha.check("q7f");
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.benchmark;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import nl.captcha.Captcha;
+import nl.captcha.backgrounds.SquigglesBackgroundProducer;
+import nl.captcha.noise.CurvedLineNoiseProducer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yakovlev.alexander.service.CharacterRange;
+import ru.yakovlev.alexander.service.StageMetrics;
+import ru.yakovlev.alexander.service.image.BackgroundTiles;
+import ru.yakovlev.alexander.service.image.CaptchaRenderer;
+import ru.yakovlev.alexander.service.image.GlyphAtlasRenderer;
+import ru.yakovlev.alexander.service.image.ImageEncoder;
+import ru.yakovlev.alexander.service.image.PngImageEncoder;
+import ru.yakovlev.alexander.service.image.RenderedCaptcha;
+import ru.yakovlev.alexander.service.image.SimpleCaptchaRenderer;
+
+/**
+ * Captcha image benchmark: drawing, PNG encoding and both of them,
+ * as it is done on the image request, by SimpleCaptcha with generated
+ * and cached backgrounds and by the glyph atlas.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class CaptchaRenderBenchmark {
+    private static final String ANSWER = "q7fz2k";
+    private ImageEncoder encoder;
+    private BackgroundTiles tiles;
+    private CaptchaRenderer renderer;
+    private CaptchaRenderer tiled;
+    private CaptchaRenderer atlas;
+    private BufferedImage image;
+
+    /**
+     * Creates renderer with default application settings.
+     */
+    @Setup
+    public void setUp() {
+        this.encoder = new PngImageEncoder(4);
+        this.tiles = new BackgroundTiles(
+            200, 50, 256, 60, new SquigglesBackgroundProducer()
+        );
+        this.renderer = new SimpleCaptchaRenderer(200, 50, this.encoder);
+        this.tiled = new SimpleCaptchaRenderer(
+            200, 50, this.tiles, this.encoder, StageMetrics.disabled()
+        );
+        this.atlas = new GlyphAtlasRenderer(
+            200, 50, new CharacterRange().characters("[a-z],[0-9]"),
+            this.tiles, this.encoder, this.renderer, StageMetrics.disabled()
+        );
+        this.image = this.draw();
+    }
+
+    /**
+     * Stops refresh of cached backgrounds.
+     */
+    @TearDown
+    public void tearDown() {
+        this.tiles.close();
+    }
+
+    @Benchmark
+    public BufferedImage draw() {
+        return new Captcha
+            .Builder(200, 50)
+            .addBackground(new SquigglesBackgroundProducer())
+            .addText(() -> ANSWER)
+            .addNoise(new CurvedLineNoiseProducer())
+            .addBorder()
+            .build()
+            .getImage();
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return this.encoder.encode(this.image);
+    }
+
+    @Benchmark
+    public RenderedCaptcha render() {
+        return this.renderer.render(ANSWER);
+    }
+
+    @Benchmark
+    public RenderedCaptcha renderTiled() {
+        return this.tiled.render(ANSWER);
+    }
+
+    @Benchmark
+    public RenderedCaptcha renderAtlas() {
+        return this.atlas.render(ANSWER);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.benchmark;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import nl.captcha.Captcha;
+import nl.captcha.backgrounds.SquigglesBackgroundProducer;
+import nl.captcha.noise.CurvedLineNoiseProducer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yakovlev.alexander.service.image.GrayscaleEncoder;
+import ru.yakovlev.alexander.service.image.ImageEncoder;
+import ru.yakovlev.alexander.service.image.PngImageEncoder;
+
+/**
+ * Encoding of captcha images as truecolor, 8 bit grayscale and indexed PNG.
+ * Besides the encode time, the size of encoded images is reported
+ * by the secondary results {@code bytes} and {@code images}:
+ * the average size is their ratio.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ImageColorBenchmark {
+    private static final String[] ANSWERS = {
+        "q7fz2k", "m3x9ta", "b8wq1e", "z0kd4r", "h6vy2n", "c5pj7u",
+    };
+
+    /**
+     * Colors of the encoded image: rgb, gray or indexed with 4, 2
+     * or 1 bits per pixel.
+     */
+    @Param({"rgb", "gray", "indexed4", "indexed2", "indexed1"})
+    private String color;
+    private ImageEncoder encoder;
+    private BufferedImage[] images;
+    private int next;
+
+    /**
+     * Draws captcha images and creates encoder of the colors.
+     */
+    @Setup
+    public void setUp() {
+        final ImageEncoder png = new PngImageEncoder(4);
+        if ("rgb".equals(this.color)) {
+            this.encoder = png;
+        } else if ("gray".equals(this.color)) {
+            this.encoder = new GrayscaleEncoder(png, Byte.SIZE);
+        } else {
+            this.encoder = new GrayscaleEncoder(
+                png, Integer.parseInt(this.color.substring("indexed".length()))
+            );
+        }
+        this.images = new BufferedImage[ANSWERS.length];
+        for (int i = 0; i < ANSWERS.length; i++) {
+            final String answer = ANSWERS[i];
+            this.images[i] = new Captcha
+                .Builder(200, 50)
+                .addBackground(new SquigglesBackgroundProducer())
+                .addText(() -> answer)
+                .addNoise(new CurvedLineNoiseProducer())
+                .addBorder()
+                .build()
+                .getImage();
+        }
+    }
+
+    @Benchmark
+    public byte[] encode(final Sizes sizes) {
+        final byte[] result = this.encoder.encode(
+            this.images[this.next % this.images.length]
+        );
+        this.next += 1;
+        sizes.bytes += result.length;
+        sizes.images += 1;
+        return result;
+    }
+
+    /**
+     * Size of encoded images in an iteration, reported by JMH
+     * with the results of the benchmark.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Sizes {
+
+        /**
+         * Total size of encoded images in bytes.
+         */
+        public long bytes;
+
+        /**
+         * Count of encoded images.
+         */
+        public long images;
+
+        /**
+         * Resets counters before an iteration.
+         */
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.bytes = 0;
+            this.images = 0;
+        }
+    }
+}
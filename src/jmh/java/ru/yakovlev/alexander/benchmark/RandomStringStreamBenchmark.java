@@ -0,0 +1,104 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.benchmark;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yakovlev.alexander.service.CharacterRange;
+import ru.yakovlev.alexander.service.RandomStringStream;
+
+/**
+ * Random string stream benchmark.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class RandomStringStreamBenchmark {
+    private static final int LENGTH = 6;
+    private static final int BATCH = 64;
+    private final char[] buffer = new char[LENGTH * BATCH];
+    private char[] chars;
+    private SecureRandom random;
+    private RandomStringStream stream;
+
+    /**
+     * Creates stream with default application settings.
+     *
+     * @throws NoSuchAlgorithmException if SHA1PRNG is not available.
+     */
+    @Setup
+    public void setUp() throws NoSuchAlgorithmException {
+        this.chars = new CharacterRange().characters("[a-z],[0-9]");
+        this.random = SecureRandom.getInstance("SHA1PRNG");
+        this.stream = new RandomStringStream(LENGTH, this.chars, this.random);
+    }
+
+    @Benchmark
+    public String next() {
+        return this.stream.next();
+    }
+
+    /**
+     * Fills preallocated buffer with a batch of answers.
+     *
+     * @return buffer with answers.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public char[] fillBatch() {
+        this.stream.fill(this.buffer, BATCH);
+        return this.buffer;
+    }
+
+    /**
+     * Baseline: one SecureRandom.nextInt call per character.
+     *
+     * @return random string.
+     */
+    @Benchmark
+    public String nextIntPerCharacter() {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < LENGTH; i++) {
+            builder.append(this.chars[this.random.nextInt(this.chars.length)]);
+        }
+        return builder.toString();
+    }
+}
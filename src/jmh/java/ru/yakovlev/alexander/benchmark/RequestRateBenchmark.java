@@ -0,0 +1,150 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yakovlev.alexander.Application;
+
+/**
+ * Max request rate of the service: the application is started
+ * on a random port with the dev and benchmark profiles, 64 client threads
+ * create captcha and solve them over HTTP. Jetty request threads
+ * and database connections are compared: 200 threads and 10 connections
+ * are the defaults of Spring Boot, the baseline of other sizes.
+ * The dev profile uses the embedded H2 database, whose queries
+ * are much faster than network round trips to PostgreSQL, so threads
+ * wait for the database less than in production. To measure
+ * with PostgreSQL run with the prod Maven profile and set
+ * SPRING_DATASOURCE_URL, SPRING_DATASOURCE_USERNAME
+ * and SPRING_DATASOURCE_PASSWORD.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Threads(64)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class RequestRateBenchmark {
+
+    /**
+     * Client of the test data.
+     */
+    private static final String CLIENT = "7f000101-6e06-121f-816e-06ce2f660000";
+    private static final int CREATED = 201;
+    @Param({"8", "200"})
+    private String maxThreads;
+    @Param({"10", "50"})
+    private String connections;
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private URI captcha;
+
+    /**
+     * Starts the application with the pool sizes.
+     */
+    @Setup
+    public void setUp() {
+        this.context = SpringApplication.run(
+            Application.class,
+            "--spring.profiles.active=dev,benchmark",
+            "--server.port=0",
+            "--app.threads.max-threads=" + this.maxThreads,
+            "--spring.datasource.hikari.maximum-pool-size=" + this.connections
+        );
+        final String port = this.context
+            .getEnvironment()
+            .getProperty("local.server.port");
+        this.client = HttpClient.newHttpClient();
+        this.captcha = URI.create(
+            String.format(
+                "http://localhost:%s/clients/%s/captcha", port, CLIENT
+            )
+        );
+    }
+
+    /**
+     * Stops the application.
+     */
+    @TearDown
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public int createAndSolve() throws IOException, InterruptedException {
+        final HttpResponse<Void> created = this.send(this.captcha, "");
+        return this.send(
+            this.captcha.resolve(
+                created.headers().firstValue("Location").orElseThrow() + "/solve"
+            ),
+            "answer"
+        ).statusCode();
+    }
+
+    private HttpResponse<Void> send(final URI uri, final String body)
+        throws IOException, InterruptedException {
+        final HttpResponse<Void> response = this.client.send(
+            HttpRequest
+                .newBuilder(uri)
+                .header("Content-Type", "text/plain")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(),
+            HttpResponse.BodyHandlers.discarding()
+        );
+        if (response.statusCode() != CREATED) {
+            throw new IllegalStateException(
+                String.format("Request failed: %d", response.statusCode())
+            );
+        }
+        return response;
+    }
+}
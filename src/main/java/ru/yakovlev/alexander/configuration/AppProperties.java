@@ -46,6 +46,16 @@ import org.springframework.context.annotation.Configuration;
 public class AppProperties {
     private String mode;
     private Captcha captcha;
+    private Image image;
+    private Random random;
+    private Storage storage;
+    private Purge purge;
+    private ClientCache clientCache;
+    private Replays replays;
+    private Signed signed;
+    private WriteBehind writeBehind;
+    private Threads threads;
+    private RateLimit rateLimit;
 
     @Getter
     @Setter
@@ -55,5 +65,225 @@ public class AppProperties {
         private int length;
         private String characterRange;
         private int timeout;
+
+        /**
+         * Max count of captcha created by one batch request.
+         */
+        private int batchLimit;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Image {
+        private int width;
+        private int height;
+        private int poolSize;
+        private int renderThreads;
+        private int compressionLevel;
+
+        /**
+         * Captcha renderer: simple or atlas.
+         */
+        private String renderer;
+
+        /**
+         * Count of cached backgrounds.
+         */
+        private int backgroundTiles;
+
+        /**
+         * Interval between refreshes of cached backgrounds in seconds.
+         */
+        private int backgroundRefresh;
+
+        /**
+         * Colors of encoded image: rgb, gray or indexed.
+         */
+        private String color;
+
+        /**
+         * Bits per pixel of the indexed image: 1, 2 or 4.
+         */
+        private int paletteBits;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Random {
+        private String algorithm;
+
+        /**
+         * Interval between reseeds in seconds.
+         */
+        private int reseedInterval;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Storage {
+
+        /**
+         * Storage of captcha and tokens: database or memory.
+         */
+        private String mode;
+
+        /**
+         * How long captcha and tokens are kept, in seconds.
+         */
+        private int ttl;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Purge {
+
+        /**
+         * Interval between purges of the database in seconds.
+         */
+        private int interval;
+
+        /**
+         * Max count of captcha deleted in one transaction.
+         */
+        private int batchSize;
+
+        /**
+         * Pause between deleted chunks in milliseconds.
+         */
+        private long pause;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ClientCache {
+
+        /**
+         * Max count of cached clients.
+         */
+        private long size;
+
+        /**
+         * How long found client is cached, in seconds.
+         */
+        private int ttl;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Replays {
+
+        /**
+         * Max count of remembered words of 64 ids, for tokens and for captcha
+         * in each of two generations.
+         */
+        private long size;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Signed {
+
+        /**
+         * Enables stateless captcha with signed handles.
+         */
+        private boolean enabled;
+
+        /**
+         * Base64 signing key, at least 32 bytes, the same on all nodes.
+         */
+        private String key;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class WriteBehind {
+
+        /**
+         * Enables asynchronous write of new verification tokens,
+         * only for the database storage.
+         */
+        private boolean enabled;
+
+        /**
+         * Max count of tokens waiting for write.
+         */
+        private int queueSize;
+
+        /**
+         * Max count of tokens inserted at once.
+         */
+        private int batchSize;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Threads {
+
+        /**
+         * Max count of request threads.
+         */
+        private int maxThreads;
+
+        /**
+         * Min count of request threads.
+         */
+        private int minThreads;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RateLimit {
+
+        /**
+         * Max count of clients with tracked limits.
+         */
+        private long clients;
+
+        /**
+         * Limit of created captcha.
+         */
+        private Limit captcha;
+
+        /**
+         * Limit of solve requests.
+         */
+        private Limit solve;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+
+        /**
+         * Permits per second, zero disables the limit.
+         */
+        private double rate;
+
+        /**
+         * Max count of permits taken at once.
+         */
+        private int burst;
     }
 }
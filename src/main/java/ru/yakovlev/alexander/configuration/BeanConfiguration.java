@@ -24,18 +24,37 @@
 
 package ru.yakovlev.alexander.configuration;
 
-import java.awt.image.BufferedImage;
 import java.security.NoSuchAlgorithmException;
-import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import nl.captcha.backgrounds.SquigglesBackgroundProducer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.Scope;
-import org.springframework.context.annotation.ScopedProxyMode;
-import org.springframework.http.converter.BufferedImageHttpMessageConverter;
-import org.springframework.http.converter.HttpMessageConverter;
+import ru.yakovlev.alexander.model.Client;
 import ru.yakovlev.alexander.service.CharacterRange;
 import ru.yakovlev.alexander.service.RandomStringStream;
+import ru.yakovlev.alexander.service.RateLimiter;
+import ru.yakovlev.alexander.service.ReplayFilter;
+import ru.yakovlev.alexander.service.StageMetrics;
+import ru.yakovlev.alexander.service.ThreadLocalSecureRandom;
+import ru.yakovlev.alexander.service.image.BackgroundTiles;
+import ru.yakovlev.alexander.service.image.CaptchaImageCache;
+import ru.yakovlev.alexander.service.image.CaptchaImagePool;
+import ru.yakovlev.alexander.service.image.CaptchaRenderer;
+import ru.yakovlev.alexander.service.image.GlyphAtlasRenderer;
+import ru.yakovlev.alexander.service.image.GrayscaleEncoder;
+import ru.yakovlev.alexander.service.image.ImageEncoder;
+import ru.yakovlev.alexander.service.image.PngImageEncoder;
+import ru.yakovlev.alexander.service.image.SimpleCaptchaRenderer;
+import ru.yakovlev.alexander.service.signed.HandleSigner;
+import ru.yakovlev.alexander.service.signed.ReplayGuard;
 
 /**
  * Bean configuration class.
@@ -46,20 +65,28 @@ import ru.yakovlev.alexander.service.RandomStringStream;
 @Configuration
 public class BeanConfiguration {
 
-    @Bean
-    public HttpMessageConverter<BufferedImage> bufferedImageHttpMessageConverter() {
-        return new BufferedImageHttpMessageConverter();
-    }
-
     @Bean
     public ServerMode serverMode(final AppProperties properties) {
         return ServerMode.valueOf(properties.getMode().toUpperCase());
     }
 
+    /**
+     * Return thread local secure random.
+     *
+     * @param appProperties application properties.
+     * @return thread local secure random.
+     * @throws NoSuchAlgorithmException if algorithm is not available.
+     * @since 0.1
+     */
     @Bean
-    @Scope(scopeName = "request", proxyMode = ScopedProxyMode.TARGET_CLASS)
-    public SecureRandom secureRandom() throws NoSuchAlgorithmException {
-        return SecureRandom.getInstance("SHA1PRNG");
+    public ThreadLocalSecureRandom secureRandom(
+        final AppProperties appProperties
+    ) throws NoSuchAlgorithmException {
+        final AppProperties.Random randomProperties = appProperties.getRandom();
+        return new ThreadLocalSecureRandom(
+            randomProperties.getAlgorithm(),
+            randomProperties.getReseedInterval()
+        );
     }
 
     /**
@@ -73,7 +100,7 @@ public class BeanConfiguration {
     @Bean
     public RandomStringStream randomStringStream(
         final AppProperties appProperties,
-        final SecureRandom secureRandom
+        final ThreadLocalSecureRandom secureRandom
     ) {
         final CharacterRange range = new CharacterRange();
         final AppProperties.Captcha captchaProperties
@@ -84,4 +111,243 @@ public class BeanConfiguration {
             secureRandom
         );
     }
+
+    /**
+     * Return captcha image encoder.
+     * Gray and indexed images are encoded as PNG with 8 bit grayscale
+     * and with the palette of gray levels.
+     *
+     * @param appProperties application properties.
+     * @return image encoder.
+     * @since 0.1
+     */
+    @Bean
+    public ImageEncoder imageEncoder(final AppProperties appProperties) {
+        final AppProperties.Image imageProperties = appProperties.getImage();
+        final ImageEncoder png = new PngImageEncoder(
+            imageProperties.getCompressionLevel()
+        );
+        final ImageEncoder result;
+        if ("gray".equalsIgnoreCase(imageProperties.getColor())) {
+            result = new GrayscaleEncoder(png, Byte.SIZE);
+        } else if ("indexed".equalsIgnoreCase(imageProperties.getColor())) {
+            result = new GrayscaleEncoder(
+                png, imageProperties.getPaletteBits()
+            );
+        } else {
+            result = png;
+        }
+        return result;
+    }
+
+    /**
+     * Return cache of captcha backgrounds.
+     *
+     * @param appProperties application properties.
+     * @return background tiles.
+     * @since 0.1
+     */
+    @Bean
+    public BackgroundTiles backgroundTiles(final AppProperties appProperties) {
+        final AppProperties.Image imageProperties = appProperties.getImage();
+        return new BackgroundTiles(
+            imageProperties.getWidth(), imageProperties.getHeight(),
+            imageProperties.getBackgroundTiles(),
+            imageProperties.getBackgroundRefresh(),
+            new SquigglesBackgroundProducer()
+        );
+    }
+
+    /**
+     * Return captcha renderer based on SimpleCaptcha.
+     *
+     * @param appProperties application properties.
+     * @param background    cache of backgrounds.
+     * @param encoder       image encoder.
+     * @param metrics       stage metrics.
+     * @return captcha renderer.
+     * @since 0.1
+     */
+    @Bean
+    @ConditionalOnProperty(
+        name = "app.image.renderer", havingValue = "simple",
+        matchIfMissing = true
+    )
+    public CaptchaRenderer captchaRenderer(
+        final AppProperties appProperties, final BackgroundTiles background,
+        final ImageEncoder encoder, final StageMetrics metrics
+    ) {
+        final AppProperties.Image imageProperties = appProperties.getImage();
+        return new SimpleCaptchaRenderer(
+            imageProperties.getWidth(), imageProperties.getHeight(),
+            background, encoder, metrics
+        );
+    }
+
+    /**
+     * Return captcha renderer with pre-rasterized glyphs of the answer
+     * alphabet. Answers out of the alphabet are drawn by SimpleCaptcha.
+     *
+     * @param appProperties application properties.
+     * @param background    cache of backgrounds.
+     * @param encoder       image encoder.
+     * @param metrics       stage metrics.
+     * @return captcha renderer.
+     * @since 0.1
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.image.renderer", havingValue = "atlas")
+    public CaptchaRenderer glyphAtlasRenderer(
+        final AppProperties appProperties, final BackgroundTiles background,
+        final ImageEncoder encoder, final StageMetrics metrics
+    ) {
+        final AppProperties.Image imageProperties = appProperties.getImage();
+        return new GlyphAtlasRenderer(
+            imageProperties.getWidth(), imageProperties.getHeight(),
+            new CharacterRange().characters(
+                appProperties.getCaptcha().getCharacterRange()
+            ),
+            background, encoder,
+            new SimpleCaptchaRenderer(
+                imageProperties.getWidth(), imageProperties.getHeight(),
+                background, encoder, metrics
+            ),
+            metrics
+        );
+    }
+
+    /**
+     * Return pool of pre-rendered captcha.
+     *
+     * @param appProperties      application properties.
+     * @param randomStringStream random string stream.
+     * @param renderer           captcha renderer.
+     * @param metrics            stage metrics.
+     * @return pool of pre-rendered captcha.
+     * @since 0.1
+     */
+    @Bean
+    public CaptchaImagePool captchaImagePool(
+        final AppProperties appProperties,
+        final RandomStringStream randomStringStream,
+        final CaptchaRenderer renderer, final StageMetrics metrics
+    ) {
+        final AppProperties.Image imageProperties = appProperties.getImage();
+        return new CaptchaImagePool(
+            imageProperties.getPoolSize(), imageProperties.getRenderThreads(),
+            randomStringStream, renderer, metrics
+        );
+    }
+
+    /**
+     * Return images of created captcha.
+     *
+     * @param appProperties application properties.
+     * @return images of created captcha.
+     * @since 0.1
+     */
+    @Bean
+    public CaptchaImageCache captchaImageCache(
+        final AppProperties appProperties
+    ) {
+        return new CaptchaImageCache(appProperties.getCaptcha().getTimeout());
+    }
+
+    /**
+     * Return recently activated tokens and solved captcha.
+     *
+     * @param appProperties application properties.
+     * @return bounded replay filter for the captcha timeout.
+     * @since 0.1
+     */
+    @Bean
+    public ReplayFilter replayFilter(final AppProperties appProperties) {
+        return new ReplayFilter(
+            appProperties.getCaptcha().getTimeout(),
+            appProperties.getReplays().getSize()
+        );
+    }
+
+    /**
+     * Return per-client limiter of created captcha.
+     *
+     * @param appProperties application properties.
+     * @return rate limiter.
+     * @since 0.1
+     */
+    @Bean
+    public RateLimiter captchaRateLimiter(final AppProperties appProperties) {
+        final AppProperties.RateLimit limits = appProperties.getRateLimit();
+        return new RateLimiter(
+            limits.getCaptcha().getRate(), limits.getCaptcha().getBurst(),
+            limits.getClients()
+        );
+    }
+
+    /**
+     * Return per-client limiter of solve requests.
+     *
+     * @param appProperties application properties.
+     * @return rate limiter.
+     * @since 0.1
+     */
+    @Bean
+    public RateLimiter solveRateLimiter(final AppProperties appProperties) {
+        final AppProperties.RateLimit limits = appProperties.getRateLimit();
+        return new RateLimiter(
+            limits.getSolve().getRate(), limits.getSolve().getBurst(),
+            limits.getClients()
+        );
+    }
+
+    /**
+     * Return cache of found clients with size and hit rate metrics.
+     *
+     * @param appProperties application properties.
+     * @param registry      meter registry.
+     * @return cache of clients by id.
+     * @since 0.1
+     */
+    @Bean
+    public Cache<UUID, Client> clientCache(
+        final AppProperties appProperties, final MeterRegistry registry
+    ) {
+        final AppProperties.ClientCache cacheProperties
+            = appProperties.getClientCache();
+        final Cache<UUID, Client> cache = Caffeine
+            .newBuilder()
+            .maximumSize(cacheProperties.getSize())
+            .expireAfterWrite(cacheProperties.getTtl(), TimeUnit.SECONDS)
+            .recordStats()
+            .build();
+        return CaffeineCacheMetrics.monitor(registry, cache, "clients");
+    }
+
+    /**
+     * Return signer of stateless captcha handles.
+     *
+     * @param appProperties application properties.
+     * @return handle signer.
+     * @since 0.1
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.signed.enabled", havingValue = "true")
+    public HandleSigner handleSigner(final AppProperties appProperties) {
+        return new HandleSigner(
+            Base64.getDecoder().decode(appProperties.getSigned().getKey())
+        );
+    }
+
+    /**
+     * Return used nonces of stateless captcha.
+     *
+     * @param appProperties application properties.
+     * @return replay guard for the captcha timeout.
+     * @since 0.1
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.signed.enabled", havingValue = "true")
+    public ReplayGuard replayGuard(final AppProperties appProperties) {
+        return new ReplayGuard(appProperties.getCaptcha().getTimeout());
+    }
 }
@@ -24,10 +24,12 @@
 
 package ru.yakovlev.alexander.controller;
 
-import java.awt.image.BufferedImage;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -35,12 +37,13 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.util.UriComponentsBuilder;
 import ru.yakovlev.alexander.configuration.ServerMode;
 import ru.yakovlev.alexander.model.Captcha;
-import ru.yakovlev.alexander.model.VerificationToken;
 import ru.yakovlev.alexander.model.dto.CaptchaResponse;
+import ru.yakovlev.alexander.model.dto.CreatedCaptcha;
 import ru.yakovlev.alexander.service.CaptchaService;
 import ru.yakovlev.alexander.service.TokenService;
 
@@ -51,6 +54,7 @@ import ru.yakovlev.alexander.service.TokenService;
  * @since 0.1
  */
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/clients/{clientId}/captcha")
 @AllArgsConstructor
 public class CaptchaController {
@@ -60,18 +64,28 @@ public class CaptchaController {
 
     /**
      * Return captcha png image.
+     * Errors are returned as JSON, so the mapping does not restrict
+     * the produced media type.
      *
      * @param clientId  client UUID.
      * @param captchaId captcha id.
      * @return captcha png image.
      * @since 0.1
      */
-    @GetMapping(path = "/{captchaId}", produces = MediaType.IMAGE_PNG_VALUE)
-    public BufferedImage captchaImage(
+    @GetMapping("/{captchaId}")
+    public ResponseEntity<?> captchaImage(
         @PathVariable final UUID clientId,
         @PathVariable final Long captchaId
     ) {
-        return this.captchaService.captchaImage(clientId, captchaId);
+        return OutcomeResponse.of(
+            this.captchaService.captchaImage(clientId, captchaId),
+            image -> ResponseEntity
+                .ok()
+                .contentType(MediaType.IMAGE_PNG)
+                .contentLength(image.getContent().length)
+                .eTag(image.getEtag())
+                .body(image.getContent())
+        );
     }
 
     /**
@@ -82,28 +96,48 @@ public class CaptchaController {
      * @since 0.1
      */
     @PostMapping
-    public ResponseEntity createCaptcha(@PathVariable UUID clientId) {
-        final Captcha captcha = this.captchaService.createNew(clientId);
-        final Long captchaId = captcha.getId();
-        final Object result;
-        if (this.serverMode.equals(ServerMode.TEST)) {
-            result = new CaptchaResponse(captchaId, captcha.getAnswer());
-        } else if (this.serverMode.equals(ServerMode.PRODUCTION)) {
-            result = captchaId;
-        } else {
-            throw new IllegalStateException(
-                String.format(
-                    "Unknown mode: %s", this.serverMode
+    public ResponseEntity<?> createCaptcha(@PathVariable UUID clientId) {
+        return OutcomeResponse.of(
+            this.captchaService.createNew(clientId),
+            captcha -> this.created(clientId, captcha)
+        );
+    }
+
+    /**
+     * Creates several captcha for the client at once.
+     *
+     * @param clientId client UUID.
+     * @param count    count of captcha.
+     * @return captcha ids and locations with optional answers.
+     * @since 0.1
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> createCaptchaBatch(
+        @PathVariable final UUID clientId,
+        @RequestParam final int count
+    ) {
+        final boolean withAnswer = this.serverMode.equals(ServerMode.TEST);
+        return OutcomeResponse.of(
+            this.captchaService.createBatch(clientId, count),
+            batch -> ResponseEntity
+                .status(HttpStatus.CREATED)
+                .body(
+                    batch
+                        .stream()
+                        .map(
+                            captcha -> new CreatedCaptcha(
+                                captcha.getId(),
+                                UriComponentsBuilder
+                                    .fromUriString(
+                                        "/clients/{clientId}/captcha/{captchaId}"
+                                    )
+                                    .build(clientId, captcha.getId()),
+                                withAnswer ? captcha.getAnswer() : null
+                            )
+                        )
+                        .collect(Collectors.toList())
                 )
-            );
-        }
-        return ResponseEntity
-            .created(
-                UriComponentsBuilder
-                    .fromUriString("/clients/{clientId}/captcha/{captchaId}")
-                    .build(clientId, captchaId)
-            )
-            .body(result);
+        );
     }
 
     /**
@@ -116,20 +150,46 @@ public class CaptchaController {
      * @since 0.1
      */
     @PostMapping("/{captchaId}/solve")
-    public ResponseEntity<Long> solve(
+    public ResponseEntity<?> solve(
         @PathVariable UUID clientId,
         @PathVariable Long captchaId,
         @RequestBody String answer
     ) {
-        final VerificationToken token = this.tokenService
-            .create(clientId, captchaId, answer);
+        return OutcomeResponse.of(
+            this.tokenService.create(clientId, captchaId, answer),
+            token -> ResponseEntity
+                .created(
+                    UriComponentsBuilder
+                        .fromUriString(
+                            "/clients/{clientId}/captcha/{captchaId}/tokens/{tokenId}"
+                        ).build(clientId, captchaId, token.getId())
+                )
+                .body(token.getId())
+        );
+    }
+
+    private ResponseEntity<?> created(
+        final UUID clientId, final Captcha captcha
+    ) {
+        final Long captchaId = captcha.getId();
+        final Object result;
+        if (this.serverMode.equals(ServerMode.TEST)) {
+            result = new CaptchaResponse(captchaId, captcha.getAnswer());
+        } else if (this.serverMode.equals(ServerMode.PRODUCTION)) {
+            result = captchaId;
+        } else {
+            throw new IllegalStateException(
+                String.format(
+                    "Unknown mode: %s", this.serverMode
+                )
+            );
+        }
         return ResponseEntity
             .created(
                 UriComponentsBuilder
-                    .fromUriString(
-                        "/clients/{clientId}/captcha/{captchaId}/tokens/{tokenId}"
-                    ).build(clientId, captchaId, token.getId())
+                    .fromUriString("/clients/{clientId}/captcha/{captchaId}")
+                    .build(clientId, captchaId)
             )
-            .body(token.getId());
+            .body(result);
     }
 }
@@ -0,0 +1,70 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.controller;
+
+import java.util.function.Function;
+
+import org.springframework.http.ResponseEntity;
+import ru.yakovlev.alexander.model.Failure;
+import ru.yakovlev.alexander.model.Outcome;
+import ru.yakovlev.alexander.model.dto.ErrorResponse;
+
+/**
+ * Mapping of the service outcomes to HTTP responses.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+final class OutcomeResponse {
+
+    private OutcomeResponse() {
+    }
+
+    /**
+     * Return response of the outcome.
+     * Failure is mapped to its HTTP status with error response body.
+     *
+     * @param outcome service outcome.
+     * @param success response of the outcome value.
+     * @param <T>     type of value.
+     * @return response.
+     * @since 0.1
+     */
+    static <T> ResponseEntity<?> of(
+        final Outcome<T> outcome,
+        final Function<? super T, ResponseEntity<?>> success
+    ) {
+        final ResponseEntity<?> result;
+        if (outcome.isSuccess()) {
+            result = success.apply(outcome.getValue());
+        } else {
+            final Failure failure = outcome.getFailure();
+            result = ResponseEntity
+                .status(failure.getStatus())
+                .body(new ErrorResponse(failure));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.controller;
+
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yakovlev.alexander.configuration.ServerMode;
+import ru.yakovlev.alexander.model.dto.SignedActivation;
+import ru.yakovlev.alexander.model.dto.SignedAnswer;
+import ru.yakovlev.alexander.model.dto.SignedCaptcha;
+import ru.yakovlev.alexander.service.signed.SignedCaptchaService;
+
+/**
+ * Controller of stateless captcha with signed handles.
+ * Handles are passed in request bodies, not in the path.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+@RestController
+@RequestMapping("/clients/{clientId}/signed-captcha")
+@ConditionalOnProperty(name = "app.signed.enabled", havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@AllArgsConstructor
+public class SignedCaptchaController {
+    private final SignedCaptchaService captchaService;
+    private final ServerMode serverMode;
+
+    /**
+     * Creates a new signed captcha for the client.
+     *
+     * @param clientId client UUID.
+     * @return handle and image with optional answer.
+     * @since 0.1
+     */
+    @PostMapping
+    public ResponseEntity<?> createCaptcha(@PathVariable final UUID clientId) {
+        final boolean withAnswer = this.serverMode.equals(ServerMode.TEST);
+        return OutcomeResponse.of(
+            this.captchaService.createNew(clientId),
+            captcha -> ResponseEntity
+                .status(HttpStatus.CREATED)
+                .body(
+                    new SignedCaptcha(
+                        captcha.getHandle(),
+                        captcha.getRendered().getImage().getContent(),
+                        withAnswer ? captcha.getRendered().getAnswer() : null
+                    )
+                )
+        );
+    }
+
+    /**
+     * Solve signed captcha.
+     *
+     * @param clientId client UUID.
+     * @param answer   captcha handle and answer.
+     * @return signed verification token.
+     * @since 0.1
+     */
+    @PostMapping("/solve")
+    public ResponseEntity<?> solve(
+        @PathVariable final UUID clientId,
+        @RequestBody final SignedAnswer answer
+    ) {
+        return OutcomeResponse.of(
+            this.captchaService.solve(
+                clientId, answer.getHandle(), answer.getAnswer()
+            ),
+            token -> ResponseEntity.status(HttpStatus.CREATED).body(token)
+        );
+    }
+
+    /**
+     * Signed verification token activation.
+     *
+     * @param clientId   client UUID.
+     * @param activation token and client secret key.
+     * @return captcha check result.
+     * @since 0.1
+     */
+    @PostMapping("/activate")
+    public ResponseEntity<?> activateToken(
+        @PathVariable final UUID clientId,
+        @RequestBody final SignedActivation activation
+    ) {
+        return OutcomeResponse.of(
+            this.captchaService.activate(
+                clientId, activation.getToken(), activation.getKey()
+            ),
+            ResponseEntity::ok
+        );
+    }
+}
@@ -27,13 +27,14 @@ package ru.yakovlev.alexander.controller;
 import java.util.UUID;
 
 import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import ru.yakovlev.alexander.model.dto.CaptchaCheckResult;
 import ru.yakovlev.alexander.model.dto.ClientKey;
 import ru.yakovlev.alexander.service.TokenService;
 
@@ -45,6 +46,7 @@ import ru.yakovlev.alexander.service.TokenService;
  */
 @AllArgsConstructor
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/clients/{clientId}/captcha/{captchaId}/tokens")
 public class VerificationTokenController {
     private final TokenService tokenService;
@@ -58,13 +60,16 @@ public class VerificationTokenController {
      * @return result of a captcha check.
      */
     @GetMapping("/{tokenId}")
-    public CaptchaCheckResult getResult(
+    public ResponseEntity<?> getResult(
         @PathVariable final UUID clientId,
         @PathVariable final Long captchaId,
         @PathVariable final Long tokenId
     ) {
-        return this.tokenService.resultOfCaptchaCheck(
-            clientId, captchaId, tokenId
+        return OutcomeResponse.of(
+            this.tokenService.resultOfCaptchaCheck(
+                clientId, captchaId, tokenId
+            ),
+            ResponseEntity::ok
         );
     }
 
@@ -79,14 +84,17 @@ public class VerificationTokenController {
      * @since 0.1
      */
     @PostMapping("/{tokenId}/activate")
-    public CaptchaCheckResult activateToken(
+    public ResponseEntity<?> activateToken(
         @PathVariable final UUID clientId,
         @PathVariable final Long captchaId,
         @PathVariable final Long tokenId,
         @RequestBody final ClientKey clientKey
     ) {
-        return this.tokenService.activate(
-            clientId, captchaId, tokenId, clientKey.getKey()
+        return OutcomeResponse.of(
+            this.tokenService.activate(
+                clientId, captchaId, tokenId, clientKey.getKey()
+            ),
+            ResponseEntity::ok
         );
     }
 }
@@ -32,6 +32,7 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Version;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
@@ -43,8 +44,6 @@ import java.util.UUID;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
-import org.springframework.http.HttpStatus;
-import org.springframework.web.server.ResponseStatusException;
 import ru.yakovlev.alexander.model.dto.CaptchaCheckResult;
 
 /**
@@ -60,7 +59,11 @@ import ru.yakovlev.alexander.model.dto.CaptchaCheckResult;
 public class Captcha {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "captcha_seq")
+    @SequenceGenerator(
+        name = "captcha_seq", sequenceName = "captcha_seq",
+        initialValue = 1001, allocationSize = 50
+    )
     private Long id;
 
     @NotNull
@@ -75,8 +78,12 @@ public class Captcha {
     @Column(nullable = false, updatable = false)
     private LocalDateTime created;
 
+    /**
+     * Volatile: in the memory storage the captcha is shared between requests
+     * and changed under its captcha lock, but read without it.
+     */
     @Column(nullable = false)
-    private boolean solved;
+    private volatile boolean solved;
 
     @Version
     private int version;
@@ -98,41 +105,55 @@ public class Captcha {
      * Captcha can be solved in a certain period of time.
      *
      * @param timeoutInSeconds timeout in seconds.
-     * @throws ResponseStatusException if timeout is over.
+     * @return true if timeout is over.
      * @since 0.1
      */
-    public void checkTimeout(final int timeoutInSeconds)
-        throws ResponseStatusException {
-        final boolean timeoutOver = LocalDateTime
+    public boolean timeoutOver(final int timeoutInSeconds) {
+        return LocalDateTime
             .now(ZoneOffset.UTC)
             .minusSeconds(timeoutInSeconds)
             .isAfter(this.created);
-        if (timeoutOver) {
-            throw new ResponseStatusException(
-                HttpStatus.BAD_REQUEST,
-                String.format(
-                    "For captcha with id: %s timeout is over.",
-                    this.id
-                )
-            );
+    }
+
+    /**
+     * Return this captcha if it is active: not solved and timeout is not over.
+     *
+     * @param timeoutInSeconds timeout in seconds.
+     * @return outcome with this captcha.
+     * @since 0.1
+     */
+    public Outcome<Captcha> active(final int timeoutInSeconds) {
+        final Outcome<Captcha> result;
+        if (this.solved) {
+            result = Outcome.failure(Failure.ALREADY_SOLVED);
+        } else if (this.timeoutOver(timeoutInSeconds)) {
+            result = Outcome.failure(Failure.TIMEOUT_OVER);
+        } else {
+            result = Outcome.success(this);
         }
+        return result;
     }
 
     /**
-     * Checks if captcha has already solved.
+     * Return this captcha if it can be solved with the secret key:
+     * key is right, captcha is not solved and timeout is not over.
+     * This method does not mutate this captcha.
      *
-     * @throws ResponseStatusException if solved.
+     * @param secretKey        client secret key.
+     * @param timeoutInSeconds captcha timeout in seconds.
+     * @return outcome with this captcha.
      * @since 0.1
      */
-    public void checkSolved() throws ResponseStatusException {
-        if (this.isSolved()) {
-            throw new ResponseStatusException(
-                HttpStatus.BAD_REQUEST,
-                String.format(
-                    "Captcha with id: %s has already solved.", this.id
-                )
-            );
+    public Outcome<Captcha> solvable(
+        final UUID secretKey, final int timeoutInSeconds
+    ) {
+        final Outcome<Captcha> result;
+        if (this.owner.authenticated(secretKey)) {
+            result = this.active(timeoutInSeconds);
+        } else {
+            result = Outcome.failure(Failure.WRONG_SECRET_KEY);
         }
+        return result;
     }
 
     /**
@@ -142,46 +163,76 @@ public class Captcha {
      * @param requestAnswer    answer to captcha.
      * @param secretKey        client secret key.
      * @param timeoutInSeconds captcha timeout in seconds.
-     * @return result of captcha check.
+     * @return outcome with result of captcha check.
      * @since 0.1
      */
-    public CaptchaCheckResult solve(
+    public Outcome<CaptchaCheckResult> solve(
         final String requestAnswer, final UUID secretKey,
         final int timeoutInSeconds
     ) {
-        this.owner.authenticate(secretKey);
-        this.checkSolved();
-        this.checkTimeout(timeoutInSeconds);
-        final CaptchaCheckResult result = this.check(requestAnswer);
-        if (result.isSuccess()) {
-            this.solved = true;
-        }
-        return result;
+        return this.solvable(secretKey, timeoutInSeconds).map(
+            captcha -> {
+                final CaptchaCheckResult result = this.check(requestAnswer);
+                if (result.isSuccess()) {
+                    this.solved = true;
+                }
+                return result;
+            }
+        );
     }
 
     /**
-     * Check answer without state checks and set solved to true,
-     * if check successfully.
+     * Check answer without state checks.
+     * Answers of the same length are compared in constant time.
      *
      * @param requestAnswer answer to captcha.
      * @return result of a captcha check.
      * @since 0.1
      */
     public CaptchaCheckResult check(final String requestAnswer) {
+        return Captcha.check(this.answer, requestAnswer);
+    }
+
+    /**
+     * Check answer to captcha with the right answer.
+     * Answers of the same length are compared in constant time.
+     *
+     * @param answer        right answer.
+     * @param requestAnswer answer to captcha.
+     * @return result of a captcha check.
+     * @since 0.1
+     */
+    public static CaptchaCheckResult check(
+        final String answer, final String requestAnswer
+    ) {
         final CaptchaCheckResult result;
-        if (this.answer.equals(requestAnswer)) {
-            result = new CaptchaCheckResult(true, "");
+        if (answer.length() != requestAnswer.length()) {
+            result = CaptchaCheckResult.wrongLength(
+                requestAnswer.length(), answer.length()
+            );
+        } else if (Captcha.sameCharacters(answer, requestAnswer)) {
+            result = CaptchaCheckResult.SUCCESS;
         } else {
-            if (this.answer.length() != requestAnswer.length()) {
-                final String error = String.format(
-                    "%d characters entered, but should be %d.",
-                    requestAnswer.length(), this.answer.length()
-                );
-                result = new CaptchaCheckResult(false, error);
-            } else {
-                result = new CaptchaCheckResult(false, "Wrong answer");
-            }
+            result = CaptchaCheckResult.WRONG_ANSWER;
         }
         return result;
     }
+
+    /**
+     * Compare strings of the same length without the early exit,
+     * so comparison time does not depend on the first wrong character.
+     *
+     * @param left  first string.
+     * @param right second string of the same length.
+     * @return true if strings are equal.
+     */
+    private static boolean sameCharacters(
+        final String left, final String right
+    ) {
+        int difference = 0;
+        for (int i = 0; i < left.length(); i++) {
+            difference |= left.charAt(i) ^ right.charAt(i);
+        }
+        return difference == 0;
+    }
 }
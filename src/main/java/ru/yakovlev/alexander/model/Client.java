@@ -38,8 +38,6 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.GenericGenerator;
 import org.hibernate.annotations.Parameter;
-import org.springframework.http.HttpStatus;
-import org.springframework.web.server.ResponseStatusException;
 
 /**
  * Client entity.
@@ -90,16 +88,10 @@ public class Client {
      * Authenticate by client secret key.
      *
      * @param secretKey secret key.
-     * @throws ResponseStatusException if not authenticated.
+     * @return true if secret key is right.
      * @since 0.1
      */
-    public void authenticate(final UUID secretKey)
-        throws ResponseStatusException {
-        if (!this.secret.equals(secretKey)) {
-            throw new ResponseStatusException(
-                HttpStatus.BAD_REQUEST,
-                "Client authentication failed: wrong secret key."
-            );
-        }
+    public boolean authenticated(final UUID secretKey) {
+        return this.secret.equals(secretKey);
     }
 }
@@ -0,0 +1,71 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Expected failures of the captcha workflow.
+ * They are ordinary outcomes of the client requests,
+ * so they are returned as values instead of thrown exceptions.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+@Getter
+@AllArgsConstructor
+public enum Failure {
+    CLIENT_NOT_FOUND(HttpStatus.NOT_FOUND, "Client not found."),
+    CAPTCHA_NOT_FOUND(HttpStatus.NOT_FOUND, "Captcha not found."),
+    TOKEN_NOT_FOUND(HttpStatus.NOT_FOUND, "Verification token not found."),
+    WRONG_SECRET_KEY(
+        HttpStatus.BAD_REQUEST,
+        "Client authentication failed: wrong secret key."
+    ),
+    TIMEOUT_OVER(HttpStatus.BAD_REQUEST, "Captcha timeout is over."),
+    ALREADY_SOLVED(HttpStatus.BAD_REQUEST, "Captcha has already solved."),
+    ALREADY_ACTIVATED(
+        HttpStatus.BAD_REQUEST, "Token has already activated."
+    ),
+    NOT_ACTIVATED(
+        HttpStatus.BAD_REQUEST, "Token has not yet been activated."
+    ),
+    WRONG_BATCH_SIZE(
+        HttpStatus.BAD_REQUEST, "Count of captcha is out of allowed range."
+    ),
+    CONCURRENT_MODIFICATION(
+        HttpStatus.CONFLICT,
+        "Concurrent modification, the request can be repeated."
+    ),
+    RATE_LIMITED(
+        HttpStatus.TOO_MANY_REQUESTS,
+        "Too many requests of the client, try again later."
+    );
+
+    private final HttpStatus status;
+    private final String message;
+}
@@ -0,0 +1,178 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.model;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Outcome of the operation: value or expected failure.
+ * Failed outcomes are shared instances, one per failure.
+ *
+ * @param <T> type of value.
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+public final class Outcome<T> {
+    private static final Map<Failure, Outcome<?>> FAILURES = failures();
+    private final T value;
+    private final Failure failure;
+
+    private Outcome(final T value, final Failure failure) {
+        this.value = value;
+        this.failure = failure;
+    }
+
+    /**
+     * Return successful outcome.
+     *
+     * @param value value.
+     * @param <T>   type of value.
+     * @return outcome with value.
+     * @since 0.1
+     */
+    public static <T> Outcome<T> success(final T value) {
+        return new Outcome<>(Objects.requireNonNull(value), null);
+    }
+
+    /**
+     * Return failed outcome.
+     *
+     * @param failure failure.
+     * @param <T>     type of value.
+     * @return outcome with failure.
+     * @since 0.1
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Outcome<T> failure(final Failure failure) {
+        return (Outcome<T>) FAILURES.get(failure);
+    }
+
+    /**
+     * Return outcome of optional value.
+     *
+     * @param value  optional value.
+     * @param absent failure if value is absent.
+     * @param <T>    type of value.
+     * @return outcome.
+     * @since 0.1
+     */
+    public static <T> Outcome<T> of(
+        final Optional<T> value, final Failure absent
+    ) {
+        final Outcome<T> result;
+        if (value.isPresent()) {
+            result = Outcome.success(value.get());
+        } else {
+            result = Outcome.failure(absent);
+        }
+        return result;
+    }
+
+    /**
+     * Checks if outcome has value.
+     *
+     * @return true if outcome has value.
+     * @since 0.1
+     */
+    public boolean isSuccess() {
+        return Objects.isNull(this.failure);
+    }
+
+    /**
+     * Return value of successful outcome.
+     *
+     * @return value.
+     * @throws IllegalStateException if outcome is failed.
+     * @since 0.1
+     */
+    public T getValue() throws IllegalStateException {
+        if (!this.isSuccess()) {
+            throw new IllegalStateException(
+                String.format("Outcome is failed: %s.", this.failure)
+            );
+        }
+        return this.value;
+    }
+
+    /**
+     * Return failure of failed outcome.
+     *
+     * @return failure or null if outcome is successful.
+     * @since 0.1
+     */
+    public Failure getFailure() {
+        return this.failure;
+    }
+
+    /**
+     * Transform value of successful outcome.
+     *
+     * @param mapper value transformation.
+     * @param <R>    type of new value.
+     * @return outcome with new value or the same failure.
+     * @since 0.1
+     */
+    public <R> Outcome<R> map(final Function<? super T, ? extends R> mapper) {
+        final Outcome<R> result;
+        if (this.isSuccess()) {
+            result = Outcome.success(mapper.apply(this.value));
+        } else {
+            result = Outcome.failure(this.failure);
+        }
+        return result;
+    }
+
+    /**
+     * Continue successful outcome by the next operation.
+     *
+     * @param next next operation.
+     * @param <R>  type of new value.
+     * @return outcome of the next operation or the same failure.
+     * @since 0.1
+     */
+    public <R> Outcome<R> flatMap(
+        final Function<? super T, Outcome<R>> next
+    ) {
+        final Outcome<R> result;
+        if (this.isSuccess()) {
+            result = next.apply(this.value);
+        } else {
+            result = Outcome.failure(this.failure);
+        }
+        return result;
+    }
+
+    private static Map<Failure, Outcome<?>> failures() {
+        final Map<Failure, Outcome<?>> result = new EnumMap<>(Failure.class);
+        for (final Failure failure : Failure.values()) {
+            result.put(failure, new Outcome<>(null, failure));
+        }
+        return result;
+    }
+}
@@ -32,6 +32,7 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Version;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
@@ -40,8 +41,6 @@ import java.util.UUID;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
-import org.springframework.http.HttpStatus;
-import org.springframework.web.server.ResponseStatusException;
 import ru.yakovlev.alexander.model.dto.CaptchaCheckResult;
 
 /**
@@ -57,7 +56,11 @@ import ru.yakovlev.alexander.model.dto.CaptchaCheckResult;
 public class VerificationToken {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "verification_token_seq")
+    @SequenceGenerator(
+        name = "verification_token_seq", sequenceName = "verification_token_seq",
+        initialValue = 1001, allocationSize = 50
+    )
     private Long id;
 
     @NotBlank
@@ -68,8 +71,12 @@ public class VerificationToken {
     @ManyToOne(optional = false, fetch = FetchType.LAZY, cascade = CascadeType.MERGE)
     private Captcha captcha;
 
+    /**
+     * Volatile: in the memory storage the token is shared between requests
+     * and changed under its captcha lock, but read without it.
+     */
     @Column(nullable = false)
-    private boolean activated;
+    private volatile boolean activated;
 
     @Version
     private int version;
@@ -89,52 +96,64 @@ public class VerificationToken {
     }
 
     /**
-     * Activate token. Verification token can be activated only once.
-     * Note: this method mutate this object and maybe captcha!
+     * Return this token if it can be activated with the secret key.
+     * This method does not mutate this token and captcha.
      *
      * @param secretKey        client secret key.
      * @param timeoutInSeconds captcha timeout in seconds.
-     * @return result of a captcha check.
-     * @throws ResponseStatusException if token has already activated.
+     * @return outcome with this token.
      * @since 0.1
      */
-    public CaptchaCheckResult activate(
+    public Outcome<VerificationToken> activatable(
         final UUID secretKey, final int timeoutInSeconds
     ) {
+        final Outcome<VerificationToken> result;
         if (this.activated) {
-            throw new ResponseStatusException(
-                HttpStatus.BAD_REQUEST,
-                String.format(
-                    "Token with id: %s has already activated.",
-                    this.id
-                )
-            );
+            result = Outcome.failure(Failure.ALREADY_ACTIVATED);
+        } else {
+            result = this.captcha
+                .solvable(secretKey, timeoutInSeconds)
+                .map(solvable -> this);
         }
-        final CaptchaCheckResult result = this.captcha.solve(
-            this.answerToCaptcha, secretKey, timeoutInSeconds
-        );
-        this.activated = true;
         return result;
     }
 
+    /**
+     * Activate token. Verification token can be activated only once.
+     * Note: this method mutate this object and maybe captcha!
+     *
+     * @param secretKey        client secret key.
+     * @param timeoutInSeconds captcha timeout in seconds.
+     * @return outcome with result of a captcha check.
+     * @since 0.1
+     */
+    public Outcome<CaptchaCheckResult> activate(
+        final UUID secretKey, final int timeoutInSeconds
+    ) {
+        return this.activatable(secretKey, timeoutInSeconds).flatMap(
+            token -> {
+                final Outcome<CaptchaCheckResult> result = this.captcha.solve(
+                    this.answerToCaptcha, secretKey, timeoutInSeconds
+                );
+                this.activated = result.isSuccess();
+                return result;
+            }
+        );
+    }
+
     /**
      * Returns the result of a captcha check if the token was activated.
      *
-     * @return result of a captcha check.
-     * @throws ResponseStatusException if the token has not been activated.
+     * @return outcome with result of a captcha check.
      * @since 0.1
      */
-    public CaptchaCheckResult resultOfCaptchaCheck()
-        throws ResponseStatusException {
-        if (!this.activated) {
-            throw new ResponseStatusException(
-                HttpStatus.BAD_REQUEST,
-                String.format(
-                    "Token with id: %s has not yet been activated.",
-                    this.id
-                )
-            );
+    public Outcome<CaptchaCheckResult> resultOfCaptchaCheck() {
+        final Outcome<CaptchaCheckResult> result;
+        if (this.activated) {
+            result = Outcome.success(this.captcha.check(this.answerToCaptcha));
+        } else {
+            result = Outcome.failure(Failure.NOT_ACTIVATED);
         }
-        return this.captcha.check(this.answerToCaptcha);
+        return result;
     }
 }
@@ -24,6 +24,9 @@
 
 package ru.yakovlev.alexander.model.dto;
 
+import java.util.Objects;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -31,14 +34,105 @@ import lombok.NoArgsConstructor;
 
 /**
  * Captcha check result.
+ * Results of the answer check are shared immutable instances,
+ * error text of a wrong length is formatted only when it is requested.
  *
  * @author Yakovlev Alexander (sanyakvolev@yandex.ru)
  * @since 0.1
  */
-@Getter
 @NoArgsConstructor(force = true, access = AccessLevel.PRIVATE)
-@AllArgsConstructor
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
 public class CaptchaCheckResult {
+
+    /**
+     * Result of the right answer.
+     */
+    public static final CaptchaCheckResult SUCCESS = new CaptchaCheckResult(
+        true, ""
+    );
+
+    /**
+     * Result of the wrong answer of the right length.
+     */
+    public static final CaptchaCheckResult WRONG_ANSWER = new CaptchaCheckResult(
+        false, "Wrong answer"
+    );
+
+    /**
+     * Max answer length of the shared wrong length results.
+     */
+    private static final int SHARED_LENGTH = 32;
+    private static final CaptchaCheckResult[][] WRONG_LENGTH
+        = wrongLengthResults();
+
+    @Getter
     private final boolean success;
     private final String error;
+    @JsonIgnore
+    private final int entered;
+    @JsonIgnore
+    private final int expected;
+
+    /**
+     * Constructor of the result with fixed error text.
+     *
+     * @param success true if the check is successful.
+     * @param error   error text.
+     * @since 0.1
+     */
+    public CaptchaCheckResult(final boolean success, final String error) {
+        this(success, error, 0, 0);
+    }
+
+    /**
+     * Return result of the answer with wrong length.
+     *
+     * @param entered  length of the entered answer.
+     * @param expected length of the captcha answer.
+     * @return check result.
+     * @since 0.1
+     */
+    public static CaptchaCheckResult wrongLength(
+        final int entered, final int expected
+    ) {
+        final CaptchaCheckResult result;
+        if (entered < SHARED_LENGTH && expected < SHARED_LENGTH) {
+            result = WRONG_LENGTH[expected][entered];
+        } else {
+            result = new CaptchaCheckResult(false, null, entered, expected);
+        }
+        return result;
+    }
+
+    /**
+     * Return error text, empty if the check is successful.
+     *
+     * @return error text.
+     * @since 0.1
+     */
+    public String getError() {
+        final String result;
+        if (Objects.nonNull(this.error)) {
+            result = this.error;
+        } else {
+            result = String.format(
+                "%d characters entered, but should be %d.",
+                this.entered, this.expected
+            );
+        }
+        return result;
+    }
+
+    private static CaptchaCheckResult[][] wrongLengthResults() {
+        final CaptchaCheckResult[][] results
+            = new CaptchaCheckResult[SHARED_LENGTH][SHARED_LENGTH];
+        for (int expected = 0; expected < SHARED_LENGTH; expected++) {
+            for (int entered = 0; entered < SHARED_LENGTH; entered++) {
+                results[expected][entered] = new CaptchaCheckResult(
+                    false, null, entered, expected
+                );
+            }
+        }
+        return results;
+    }
 }
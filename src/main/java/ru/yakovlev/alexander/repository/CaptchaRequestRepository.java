@@ -24,10 +24,15 @@
 
 package ru.yakovlev.alexander.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import ru.yakovlev.alexander.model.Captcha;
 
@@ -49,10 +54,56 @@ public interface CaptchaRequestRepository
      * @since 0.1
      */
     @Query(
-        "SELECT r FROM Captcha r JOIN r.owner "
-            + "WHERE r.id = :captchaId and r.owner.id = :clientId"
+        "SELECT r FROM Captcha r "
+            + "WHERE r.id = :captchaId AND r.owner.id = :clientId"
     )
     Optional<Captcha> findByIdAndOwnerId(
         final Long captchaId, final UUID clientId
     );
+
+    /**
+     * Return ids of captcha created before the time, the oldest first.
+     *
+     * @param created  time of creation.
+     * @param pageable page of ids.
+     * @return captcha ids.
+     * @since 0.1
+     */
+    @Query(
+        "SELECT r.id FROM Captcha r WHERE r.created < :created "
+            + "ORDER BY r.created"
+    )
+    List<Long> findIdsCreatedBefore(
+        final LocalDateTime created, final Pageable pageable
+    );
+
+    /**
+     * Delete captcha by ids.
+     *
+     * @param ids captcha ids.
+     * @return count of deleted captcha.
+     * @since 0.1
+     */
+    @Modifying
+    @Query("DELETE FROM Captcha r WHERE r.id IN :ids")
+    int deleteByIds(final Collection<Long> ids);
+
+    /**
+     * Mark the captcha solved if it is not solved yet
+     * and the token has the right answer.
+     *
+     * @param captchaId captcha id.
+     * @param tokenId   token id.
+     * @return 1 if the captcha is solved by this call, otherwise 0.
+     * @since 0.1
+     */
+    @Modifying
+    @Query(
+        "UPDATE Captcha r SET r.solved = TRUE, r.version = r.version + 1 "
+            + "WHERE r.id = :captchaId AND r.solved = FALSE "
+            + "AND r.answer = ("
+            + "SELECT t.answerToCaptcha FROM VerificationToken t "
+            + "WHERE t.id = :tokenId)"
+    )
+    int solve(final Long captchaId, final Long tokenId);
 }
@@ -0,0 +1,68 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import ru.yakovlev.alexander.model.Captcha;
+
+/**
+ * Storage of captcha.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+public interface CaptchaStore {
+
+    /**
+     * Save captcha.
+     *
+     * @param captcha captcha.
+     * @return saved captcha with id.
+     * @since 0.1
+     */
+    Captcha save(Captcha captcha);
+
+    /**
+     * Save several captcha at once.
+     *
+     * @param captcha captcha.
+     * @return saved captcha with ids in the same order.
+     * @since 0.1
+     */
+    List<Captcha> saveAll(List<Captcha> captcha);
+
+    /**
+     * Return captcha found by id of client and captcha id.
+     *
+     * @param captchaId captcha id.
+     * @param clientId  client UUID.
+     * @return optional of captcha.
+     * @since 0.1
+     */
+    Optional<Captcha> findByIdAndOwnerId(Long captchaId, UUID clientId);
+}
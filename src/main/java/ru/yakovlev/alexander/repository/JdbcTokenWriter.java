@@ -0,0 +1,71 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.repository;
+
+import javax.transaction.Transactional;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yakovlev.alexander.model.VerificationToken;
+
+/**
+ * Batch insert of verification tokens with already allocated ids.
+ * JPA would generate new ids for such tokens, so they are inserted by JDBC.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+@Component
+@Conditional(WriteBehindCondition.class)
+@AllArgsConstructor
+public class JdbcTokenWriter {
+    private static final String INSERT = "INSERT INTO verification_token"
+        + " (id, answer_to_captcha, captcha_id, activated, version)"
+        + " VALUES (?, ?, ?, ?, ?)";
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Insert tokens in one transaction.
+     *
+     * @param tokens new verification tokens with ids.
+     * @since 0.1
+     */
+    @Transactional
+    public void insert(final List<VerificationToken> tokens) {
+        this.jdbcTemplate.batchUpdate(
+            INSERT, tokens, tokens.size(),
+            (statement, token) -> {
+                statement.setLong(1, token.getId());
+                statement.setString(2, token.getAnswerToCaptcha());
+                statement.setLong(3, token.getCaptcha().getId());
+                statement.setBoolean(4, token.isActivated());
+                statement.setInt(5, token.getVersion());
+            }
+        );
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.repository;
+
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+/**
+ * Deletion of old captcha and their tokens from the database.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+@Component
+@ConditionalOnProperty(
+    name = "app.storage.mode", havingValue = "database", matchIfMissing = true
+)
+@AllArgsConstructor
+public class JpaCaptchaPurge {
+    private final CaptchaRequestRepository captchaRepository;
+    private final VerificationTokenRepository tokenRepository;
+
+    /**
+     * Delete the oldest captcha created before the time and their tokens.
+     * Every chunk is deleted in its own transaction,
+     * so row locks are held only for this chunk.
+     *
+     * @param created time of creation.
+     * @param limit   max count of captcha to delete.
+     * @return counts of deleted captcha and tokens.
+     * @since 0.1
+     */
+    @Transactional
+    public PurgedChunk deleteCreatedBefore(
+        final LocalDateTime created, final int limit
+    ) {
+        final List<Long> ids = this.captchaRepository
+            .findIdsCreatedBefore(created, PageRequest.of(0, limit));
+        final PurgedChunk result;
+        if (ids.isEmpty()) {
+            result = new PurgedChunk(0, 0);
+        } else {
+            final int tokens = this.tokenRepository.deleteByCaptchaIds(ids);
+            result = new PurgedChunk(
+                this.captchaRepository.deleteByIds(ids), tokens
+            );
+        }
+        return result;
+    }
+}
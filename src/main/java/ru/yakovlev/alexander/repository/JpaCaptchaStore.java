@@ -0,0 +1,68 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.repository;
+
+import javax.transaction.Transactional;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yakovlev.alexander.model.Captcha;
+
+/**
+ * Captcha storage in the database.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+@Component
+@ConditionalOnProperty(
+    name = "app.storage.mode", havingValue = "database", matchIfMissing = true
+)
+@AllArgsConstructor
+public class JpaCaptchaStore implements CaptchaStore {
+    private final CaptchaRequestRepository captchaRepository;
+
+    @Override
+    public Captcha save(final Captcha captcha) {
+        return this.captchaRepository.save(captcha);
+    }
+
+    @Override
+    @Transactional
+    public List<Captcha> saveAll(final List<Captcha> captcha) {
+        return this.captchaRepository.saveAll(captcha);
+    }
+
+    @Override
+    public Optional<Captcha> findByIdAndOwnerId(
+        final Long captchaId, final UUID clientId
+    ) {
+        return this.captchaRepository.findByIdAndOwnerId(captchaId, clientId);
+    }
+}
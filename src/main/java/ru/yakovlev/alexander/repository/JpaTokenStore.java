@@ -0,0 +1,168 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.repository;
+
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import ru.yakovlev.alexander.model.Failure;
+import ru.yakovlev.alexander.model.Outcome;
+import ru.yakovlev.alexander.model.VerificationToken;
+import ru.yakovlev.alexander.model.dto.CaptchaCheckResult;
+
+/**
+ * Verification token storage in the database.
+ * Activation changes the token and the captcha by conditional updates,
+ * so concurrent activations are serialized by the database
+ * instead of optimistic lock failures. On PostgreSQL the updates
+ * and the read of the result are made by one statement,
+ * other databases read the token again if the captcha is not solved.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+@Component
+@ConditionalOnProperty(
+    name = "app.storage.mode", havingValue = "database", matchIfMissing = true
+)
+@AllArgsConstructor
+public class JpaTokenStore implements TokenStore {
+    private final VerificationTokenRepository tokenRepository;
+    private final CaptchaRequestRepository captchaRepository;
+    private final PostgresTokenActivation postgres;
+
+    @Override
+    public VerificationToken save(final VerificationToken token) {
+        return this.tokenRepository.save(token);
+    }
+
+    @Override
+    public Optional<VerificationToken> findByIdsWithFetch(
+        final UUID clientId, final Long captchaId, final Long tokenId
+    ) {
+        return this.tokenRepository
+            .findByIdsWithFetch(clientId, captchaId, tokenId);
+    }
+
+    @Override
+    @Transactional
+    public Outcome<CaptchaCheckResult> activate(
+        final UUID clientId, final Long captchaId, final Long tokenId,
+        final UUID secretKey, final int timeoutInSeconds
+    ) {
+        final LocalDateTime notBefore = LocalDateTime
+            .now(ZoneOffset.UTC)
+            .minusSeconds(timeoutInSeconds);
+        final Outcome<CaptchaCheckResult> result;
+        if (this.postgres.supported()) {
+            result = this.postgres.activate(
+                clientId, captchaId, tokenId, secretKey, notBefore
+            );
+        } else if (this.tokenRepository.activate(
+            clientId, captchaId, tokenId, secretKey, notBefore
+        ) == 1) {
+            if (this.captchaRepository.solve(captchaId, tokenId) == 1) {
+                result = Outcome.success(CaptchaCheckResult.SUCCESS);
+            } else {
+                result = this.notSolved(clientId, captchaId, tokenId);
+            }
+        } else {
+            result = this.activationFailure(
+                clientId, captchaId, tokenId, secretKey, timeoutInSeconds
+            );
+        }
+        return result;
+    }
+
+    /**
+     * Result of the activated token, which has not solved the captcha:
+     * either the answer is wrong or the captcha has been solved
+     * by the concurrent activation of another token. In the last case
+     * the activation is rolled back, so the captcha is solved only once.
+     *
+     * @param clientId  client id.
+     * @param captchaId captcha id.
+     * @param tokenId   token id.
+     * @return outcome with captcha check result.
+     */
+    private Outcome<CaptchaCheckResult> notSolved(
+        final UUID clientId, final Long captchaId, final Long tokenId
+    ) {
+        final Outcome<CaptchaCheckResult> check = this.tokenRepository
+            .findByIdsWithFetch(clientId, captchaId, tokenId)
+            .map(VerificationToken::resultOfCaptchaCheck)
+            .orElse(Outcome.failure(Failure.TOKEN_NOT_FOUND));
+        final Outcome<CaptchaCheckResult> result;
+        if (check.isSuccess() && check.getValue().isSuccess()) {
+            TransactionAspectSupport
+                .currentTransactionStatus()
+                .setRollbackOnly();
+            result = Outcome.failure(Failure.ALREADY_SOLVED);
+        } else {
+            result = check;
+        }
+        return result;
+    }
+
+    /**
+     * Find out why the token was not activated.
+     *
+     * @param clientId         client id.
+     * @param captchaId        captcha id.
+     * @param tokenId          token id.
+     * @param secretKey        client secret key.
+     * @param timeoutInSeconds captcha timeout in seconds.
+     * @return failed outcome.
+     */
+    private Outcome<CaptchaCheckResult> activationFailure(
+        final UUID clientId, final Long captchaId, final Long tokenId,
+        final UUID secretKey, final int timeoutInSeconds
+    ) {
+        final Optional<VerificationToken> token = this.tokenRepository
+            .findByIdsWithFetch(clientId, captchaId, tokenId);
+        final Failure failure;
+        if (token.isPresent()) {
+            final Outcome<VerificationToken> activatable = token
+                .get()
+                .activatable(secretKey, timeoutInSeconds);
+            if (activatable.isSuccess()) {
+                // Activated by the concurrent request after the update.
+                failure = Failure.ALREADY_ACTIVATED;
+            } else {
+                failure = activatable.getFailure();
+            }
+        } else {
+            failure = Failure.TOKEN_NOT_FOUND;
+        }
+        return Outcome.failure(failure);
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.repository;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yakovlev.alexander.configuration.AppProperties;
+import ru.yakovlev.alexander.model.Captcha;
+import ru.yakovlev.alexander.model.Failure;
+import ru.yakovlev.alexander.model.Outcome;
+import ru.yakovlev.alexander.model.VerificationToken;
+import ru.yakovlev.alexander.model.dto.CaptchaCheckResult;
+
+/**
+ * In-memory storage of captcha and their verification tokens.
+ * Only clients are stored in the database in this mode.
+ * Captcha and tokens are kept for the configured time after
+ * the captcha creation and removed in the background.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+@Component
+@ConditionalOnProperty(name = "app.storage.mode", havingValue = "memory")
+public class MemoryCaptchaStorage
+    implements CaptchaStore, TokenStore, AutoCloseable {
+    private final Map<Long, Captcha> captchas = new ConcurrentHashMap<>();
+    private final Map<Long, VerificationToken> tokens
+        = new ConcurrentHashMap<>();
+    private final AtomicLong captchaIds = new AtomicLong();
+    private final AtomicLong tokenIds = new AtomicLong();
+    private final int ttlInSeconds;
+    private final ScheduledExecutorService cleaner;
+
+    /**
+     * Additional constructor.
+     *
+     * @param appProperties application properties.
+     * @since 0.1
+     */
+    @Autowired
+    public MemoryCaptchaStorage(final AppProperties appProperties) {
+        this(appProperties.getStorage().getTtl());
+    }
+
+    /**
+     * Primary constructor. Starts background removal of expired captcha.
+     *
+     * @param ttlInSeconds how long captcha and tokens are kept in seconds.
+     * @since 0.1
+     */
+    public MemoryCaptchaStorage(final int ttlInSeconds) {
+        if (ttlInSeconds <= 0) {
+            throw new IllegalArgumentException(
+                "Time to live must be greater than zero."
+            );
+        }
+        this.ttlInSeconds = ttlInSeconds;
+        this.cleaner = Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+                final Thread thread = new Thread(
+                    runnable, "memory-captcha-storage-cleaner"
+                );
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+        this.cleaner.scheduleWithFixedDelay(
+            this::purge, ttlInSeconds, ttlInSeconds, TimeUnit.SECONDS
+        );
+    }
+
+    @Override
+    public Captcha save(final Captcha captcha) {
+        final Captcha result;
+        if (Objects.isNull(captcha.getId())) {
+            result = new Captcha(
+                this.captchaIds.incrementAndGet(), captcha.getOwner(),
+                captcha.getAnswer(), captcha.getCreated(),
+                captcha.isSolved(), captcha.getVersion()
+            );
+            this.captchas.put(result.getId(), result);
+        } else {
+            result = captcha;
+        }
+        return result;
+    }
+
+    @Override
+    public List<Captcha> saveAll(final List<Captcha> captcha) {
+        return captcha
+            .stream()
+            .map(this::save)
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public Optional<Captcha> findByIdAndOwnerId(
+        final Long captchaId, final UUID clientId
+    ) {
+        return Optional
+            .ofNullable(this.captchas.get(captchaId))
+            .filter(captcha -> captcha.getOwner().getId().equals(clientId));
+    }
+
+    @Override
+    public VerificationToken save(final VerificationToken token) {
+        final VerificationToken result;
+        if (Objects.isNull(token.getId())) {
+            result = new VerificationToken(
+                this.tokenIds.incrementAndGet(), token.getAnswerToCaptcha(),
+                token.getCaptcha(), token.isActivated(), token.getVersion()
+            );
+            this.tokens.put(result.getId(), result);
+        } else {
+            result = token;
+        }
+        return result;
+    }
+
+    @Override
+    public Optional<VerificationToken> findByIdsWithFetch(
+        final UUID clientId, final Long captchaId, final Long tokenId
+    ) {
+        return Optional
+            .ofNullable(this.tokens.get(tokenId))
+            .filter(token -> token.getCaptcha().getId().equals(captchaId))
+            .filter(
+                token -> token.getCaptcha().getOwner().getId().equals(clientId)
+            );
+    }
+
+    @Override
+    public Outcome<CaptchaCheckResult> activate(
+        final UUID clientId, final Long captchaId, final Long tokenId,
+        final UUID secretKey, final int timeoutInSeconds
+    ) {
+        return Outcome
+            .of(
+                this.findByIdsWithFetch(clientId, captchaId, tokenId),
+                Failure.TOKEN_NOT_FOUND
+            )
+            .flatMap(
+                token -> {
+                    // Captcha instances are shared between requests,
+                    // their state is volatile for readers without the lock.
+                    synchronized (token.getCaptcha()) {
+                        return token.activate(secretKey, timeoutInSeconds);
+                    }
+                }
+            );
+    }
+
+    /**
+     * Remove captcha and tokens created before time to live.
+     *
+     * @since 0.1
+     */
+    public void purge() {
+        final LocalDateTime expired = LocalDateTime
+            .now(ZoneOffset.UTC)
+            .minusSeconds(this.ttlInSeconds);
+        this.tokens
+            .values()
+            .removeIf(token -> token.getCaptcha().getCreated().isBefore(expired));
+        this.captchas
+            .values()
+            .removeIf(captcha -> captcha.getCreated().isBefore(expired));
+    }
+
+    @Override
+    public void close() {
+        this.cleaner.shutdownNow();
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import ru.yakovlev.alexander.model.Captcha;
+import ru.yakovlev.alexander.model.Failure;
+import ru.yakovlev.alexander.model.Outcome;
+import ru.yakovlev.alexander.model.dto.CaptchaCheckResult;
+
+/**
+ * Token activation in one statement on PostgreSQL.
+ * The statement reads the token with its captcha and client,
+ * activates the token, solves the captcha and returns the read state,
+ * so the result is known without another query even if the answer is wrong.
+ * Concurrent activations are serialized by the conditional updates.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+@Component
+@ConditionalOnProperty(
+    name = "app.storage.mode", havingValue = "database", matchIfMissing = true
+)
+public class PostgresTokenActivation {
+    private static final String ACTIVATE = "WITH state AS ("
+        + "SELECT t.activated, t.answer_to_captcha AS given, c.answer, c.solved,"
+        + " c.created >= ? AS active, o.secret = ? AS authenticated"
+        + " FROM verification_token t"
+        + " JOIN captcha c ON c.id = t.captcha_id"
+        + " JOIN client o ON o.id = c.owner_id"
+        + " WHERE t.id = ? AND c.id = ? AND o.id = ?"
+        + "), activated_token AS ("
+        + "UPDATE verification_token t"
+        + " SET activated = TRUE, version = t.version + 1"
+        + " FROM state s"
+        + " WHERE t.id = ? AND t.activated = FALSE"
+        + " AND s.authenticated AND NOT s.solved AND s.active"
+        + " RETURNING t.id"
+        + "), solved_captcha AS ("
+        + "UPDATE captcha c"
+        + " SET solved = TRUE, version = c.version + 1"
+        + " FROM state s"
+        + " WHERE c.id = ? AND c.solved = FALSE AND c.answer = s.given"
+        + " AND EXISTS (SELECT 1 FROM activated_token)"
+        + " RETURNING c.id"
+        + ") SELECT s.activated, s.given, s.answer, s.solved, s.active,"
+        + " s.authenticated,"
+        + " EXISTS (SELECT 1 FROM activated_token) AS activation,"
+        + " EXISTS (SELECT 1 FROM solved_captcha) AS solution"
+        + " FROM state s";
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean supported;
+
+    /**
+     * Primary constructor. Finds out the database product.
+     *
+     * @param jdbcTemplate jdbc template.
+     * @since 0.1
+     */
+    public PostgresTokenActivation(final JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.supported = jdbcTemplate.execute(
+            (ConnectionCallback<Boolean>) connection -> connection
+                .getMetaData()
+                .getDatabaseProductName()
+                .equalsIgnoreCase("PostgreSQL")
+        );
+    }
+
+    /**
+     * Whether the database supports the activation in one statement.
+     *
+     * @return true on PostgreSQL.
+     * @since 0.1
+     */
+    public boolean supported() {
+        return this.supported;
+    }
+
+    /**
+     * Activate the token and solve its captcha by one statement.
+     * Must be called by a transactional method. If the captcha
+     * has been solved by the concurrent activation of another token,
+     * the transaction is rolled back, so the captcha is solved only once.
+     *
+     * @param clientId  client id.
+     * @param captchaId captcha id.
+     * @param tokenId   token id.
+     * @param secretKey client secret key.
+     * @param notBefore min time of captcha creation.
+     * @return outcome with captcha check result.
+     * @since 0.1
+     */
+    public Outcome<CaptchaCheckResult> activate(
+        final UUID clientId, final Long captchaId, final Long tokenId,
+        final UUID secretKey, final LocalDateTime notBefore
+    ) {
+        return this.jdbcTemplate.query(
+            ACTIVATE,
+            statement -> {
+                statement.setTimestamp(1, Timestamp.valueOf(notBefore));
+                statement.setObject(2, secretKey);
+                statement.setLong(3, tokenId);
+                statement.setLong(4, captchaId);
+                statement.setObject(5, clientId);
+                statement.setLong(6, tokenId);
+                statement.setLong(7, captchaId);
+            },
+            (ResultSetExtractor<Outcome<CaptchaCheckResult>>) row -> {
+                final Outcome<CaptchaCheckResult> result;
+                if (row.next()) {
+                    result = PostgresTokenActivation.outcome(row);
+                } else {
+                    result = Outcome.failure(Failure.TOKEN_NOT_FOUND);
+                }
+                return result;
+            }
+        );
+    }
+
+    private static Outcome<CaptchaCheckResult> outcome(final ResultSet row)
+        throws SQLException {
+        final Outcome<CaptchaCheckResult> result;
+        if (row.getBoolean("solution")) {
+            result = Outcome.success(CaptchaCheckResult.SUCCESS);
+        } else if (row.getBoolean("activation")) {
+            final CaptchaCheckResult check = Captcha.check(
+                row.getString("answer"), row.getString("given")
+            );
+            if (check.isSuccess()) {
+                TransactionAspectSupport
+                    .currentTransactionStatus()
+                    .setRollbackOnly();
+                result = Outcome.failure(Failure.ALREADY_SOLVED);
+            } else {
+                result = Outcome.success(check);
+            }
+        } else {
+            result = Outcome.failure(PostgresTokenActivation.failure(row));
+        }
+        return result;
+    }
+
+    /**
+     * Why the token was not activated, in the order
+     * of {@link ru.yakovlev.alexander.model.VerificationToken#activatable}.
+     *
+     * @param row state of the token.
+     * @return failure.
+     * @throws SQLException if the state can not be read.
+     */
+    private static Failure failure(final ResultSet row) throws SQLException {
+        final Failure result;
+        if (row.getBoolean("activated")) {
+            result = Failure.ALREADY_ACTIVATED;
+        } else if (!row.getBoolean("authenticated")) {
+            result = Failure.WRONG_SECRET_KEY;
+        } else if (row.getBoolean("solved")) {
+            result = Failure.ALREADY_SOLVED;
+        } else if (!row.getBoolean("active")) {
+            result = Failure.TIMEOUT_OVER;
+        } else {
+            // Activated by the concurrent request after the read.
+            result = Failure.ALREADY_ACTIVATED;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.repository;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.stereotype.Component;
+import ru.yakovlev.alexander.model.VerificationToken;
+
+/**
+ * Allocation of verification token ids without insert.
+ * Ids are taken from the identifier generator of the entity,
+ * so they are allocated in memory by blocks of the sequence
+ * and never collide with ids of tokens saved by JPA.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+@Component
+@Conditional(WriteBehindCondition.class)
+public class TokenIds {
+    private final SessionFactoryImplementor sessionFactory;
+    private final IdentifierGenerator generator;
+
+    /**
+     * Primary constructor.
+     *
+     * @param entityManagerFactory entity manager factory.
+     * @since 0.1
+     */
+    @Autowired
+    public TokenIds(final EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory
+            .unwrap(SessionFactoryImplementor.class);
+        this.generator = this.sessionFactory
+            .getMetamodel()
+            .entityPersister(VerificationToken.class)
+            .getIdentifierGenerator();
+    }
+
+    /**
+     * Allocate next id. The database is queried only
+     * when the allocated block of the sequence is over.
+     *
+     * @return verification token id.
+     * @since 0.1
+     */
+    public Long next() {
+        // Session is opened without a connection, it is acquired on demand.
+        final StatelessSession session = this.sessionFactory
+            .openStatelessSession();
+        try {
+            return (Long) this.generator.generate(
+                (SharedSessionContractImplementor) session, null
+            );
+        } finally {
+            session.close();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import ru.yakovlev.alexander.model.Outcome;
+import ru.yakovlev.alexander.model.VerificationToken;
+import ru.yakovlev.alexander.model.dto.CaptchaCheckResult;
+
+/**
+ * Storage of verification tokens.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+public interface TokenStore {
+
+    /**
+     * Save verification token.
+     *
+     * @param token verification token.
+     * @return saved token with id.
+     * @since 0.1
+     */
+    VerificationToken save(VerificationToken token);
+
+    /**
+     * Return verification token found by client, captcha and token ids.
+     * Captcha and client of the token are available without lazy loading.
+     *
+     * @param clientId  client id.
+     * @param captchaId captcha id.
+     * @param tokenId   token id.
+     * @return optional of verification token.
+     * @since 0.1
+     */
+    Optional<VerificationToken> findByIdsWithFetch(
+        UUID clientId, Long captchaId, Long tokenId
+    );
+
+    /**
+     * Activate verification token and solve its captcha,
+     * if the answer is right. Token can be activated only once,
+     * also by concurrent requests.
+     *
+     * @param clientId         client id.
+     * @param captchaId        captcha id.
+     * @param tokenId          token id.
+     * @param secretKey        client secret key.
+     * @param timeoutInSeconds captcha timeout in seconds.
+     * @return outcome with captcha check result.
+     * @since 0.1
+     */
+    Outcome<CaptchaCheckResult> activate(
+        UUID clientId, Long captchaId, Long tokenId,
+        UUID secretKey, int timeoutInSeconds
+    );
+}
@@ -24,10 +24,13 @@
 
 package ru.yakovlev.alexander.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import ru.yakovlev.alexander.model.VerificationToken;
 
@@ -57,4 +60,44 @@ public interface VerificationTokenRepository
     Optional<VerificationToken> findByIdsWithFetch(
         final UUID clientId, final Long captchaId, final Long tokenId
     );
+
+    /**
+     * Delete verification tokens of the captcha.
+     *
+     * @param captchaIds captcha ids.
+     * @return count of deleted tokens.
+     * @since 0.1
+     */
+    @Modifying
+    @Query("DELETE FROM VerificationToken t WHERE t.captcha.id IN :captchaIds")
+    int deleteByCaptchaIds(final Collection<Long> captchaIds);
+
+    /**
+     * Mark the token activated if it is not activated yet and its captcha
+     * can be solved: client and secret key are right, captcha is not solved
+     * and created not before the time.
+     *
+     * @param clientId  client id.
+     * @param captchaId captcha id.
+     * @param tokenId   token id.
+     * @param secretKey client secret key.
+     * @param notBefore min time of captcha creation.
+     * @return 1 if the token is activated by this call, otherwise 0.
+     * @since 0.1
+     */
+    @Modifying
+    @Query(
+        "UPDATE VerificationToken t "
+            + "SET t.activated = TRUE, t.version = t.version + 1 "
+            + "WHERE t.id = :tokenId AND t.activated = FALSE "
+            + "AND t.captcha.id IN ("
+            + "SELECT c.id FROM Captcha c JOIN c.owner o "
+            + "WHERE c.id = :captchaId AND o.id = :clientId "
+            + "AND o.secret = :secretKey AND c.solved = FALSE "
+            + "AND c.created >= :notBefore)"
+    )
+    int activate(
+        final UUID clientId, final Long captchaId, final Long tokenId,
+        final UUID secretKey, final LocalDateTime notBefore
+    );
 }
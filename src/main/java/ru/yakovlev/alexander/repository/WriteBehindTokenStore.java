@@ -0,0 +1,270 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import ru.yakovlev.alexander.configuration.AppProperties;
+import ru.yakovlev.alexander.model.Outcome;
+import ru.yakovlev.alexander.model.VerificationToken;
+import ru.yakovlev.alexander.model.dto.CaptchaCheckResult;
+
+/**
+ * Verification token storage with asynchronous write of new tokens.
+ * Ids of new tokens are allocated in memory, the tokens are queued
+ * and inserted by batches in the background. Queued tokens are found
+ * from the queue, activation of a queued token waits for its write.
+ * Tokens queued at a crash are lost, as if the solve request had failed.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+@Slf4j
+@Primary
+@Component
+@Conditional(WriteBehindCondition.class)
+public class WriteBehindTokenStore implements TokenStore, AutoCloseable {
+    private static final long CLOSE_TIMEOUT_IN_SECONDS = 10L;
+    private final TokenStore store;
+    private final TokenIds ids;
+    private final JdbcTokenWriter writer;
+    private final int batchSize;
+    private final BlockingQueue<Pending> queue;
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+
+    /**
+     * Additional constructor.
+     *
+     * @param store         token storage in the database.
+     * @param ids           token id allocation.
+     * @param writer        batch insert of tokens.
+     * @param appProperties application properties.
+     * @since 0.1
+     */
+    @Autowired
+    public WriteBehindTokenStore(
+        final JpaTokenStore store, final TokenIds ids,
+        final JdbcTokenWriter writer, final AppProperties appProperties
+    ) {
+        this(
+            store, ids, writer,
+            appProperties.getWriteBehind().getQueueSize(),
+            appProperties.getWriteBehind().getBatchSize()
+        );
+    }
+
+    /**
+     * Primary constructor. Starts background writer.
+     *
+     * @param store     token storage in the database.
+     * @param ids       token id allocation.
+     * @param writer    batch insert of tokens.
+     * @param queueSize max count of queued tokens.
+     * @param batchSize max count of tokens inserted at once.
+     * @since 0.1
+     */
+    public WriteBehindTokenStore(
+        final TokenStore store, final TokenIds ids,
+        final JdbcTokenWriter writer, final int queueSize, final int batchSize
+    ) {
+        if (queueSize <= 0) {
+            throw new IllegalArgumentException(
+                "Queue size must be greater than zero."
+            );
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException(
+                "Batch size must be greater than zero."
+            );
+        }
+        this.store = store;
+        this.ids = ids;
+        this.writer = writer;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.executor = Executors.newSingleThreadExecutor(
+            runnable -> {
+                final Thread thread = new Thread(
+                    runnable, "verification-token-writer"
+                );
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+        this.executor.execute(this::write);
+    }
+
+    /**
+     * Queue new token for write. If the queue is full,
+     * the caller waits, so the queue is bounded by the database speed.
+     *
+     * @param token verification token.
+     * @return token with allocated id.
+     * @since 0.1
+     */
+    @Override
+    public VerificationToken save(final VerificationToken token) {
+        final VerificationToken result;
+        if (Objects.isNull(token.getId())) {
+            result = new VerificationToken(
+                this.ids.next(), token.getAnswerToCaptcha(),
+                token.getCaptcha(), token.isActivated(), token.getVersion()
+            );
+            final Pending queued = new Pending(
+                result, new CompletableFuture<>()
+            );
+            this.pending.put(result.getId(), queued);
+            try {
+                this.queue.put(queued);
+            } catch (final InterruptedException ex) {
+                this.pending.remove(result.getId());
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(
+                    "Interrupted while the token is queued.", ex
+                );
+            }
+        } else {
+            result = this.store.save(token);
+        }
+        return result;
+    }
+
+    @Override
+    public Optional<VerificationToken> findByIdsWithFetch(
+        final UUID clientId, final Long captchaId, final Long tokenId
+    ) {
+        final Pending queued = this.pending.get(tokenId);
+        final Optional<VerificationToken> result;
+        if (Objects.isNull(queued)) {
+            result = this.store.findByIdsWithFetch(clientId, captchaId, tokenId);
+        } else {
+            result = Optional
+                .of(queued.token)
+                .filter(token -> token.getCaptcha().getId().equals(captchaId))
+                .filter(
+                    token -> token.getCaptcha().getOwner().getId().equals(clientId)
+                );
+        }
+        return result;
+    }
+
+    @Override
+    public Outcome<CaptchaCheckResult> activate(
+        final UUID clientId, final Long captchaId, final Long tokenId,
+        final UUID secretKey, final int timeoutInSeconds
+    ) {
+        final Pending queued = this.pending.get(tokenId);
+        if (Objects.nonNull(queued)) {
+            // Failed write is reported by the storage as absent token.
+            queued.written.handle((written, ex) -> written).join();
+        }
+        return this.store.activate(
+            clientId, captchaId, tokenId, secretKey, timeoutInSeconds
+        );
+    }
+
+    /**
+     * Stop the background writer and write the queued tokens.
+     *
+     * @throws InterruptedException if interrupted while waiting the writer.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        this.executor.shutdownNow();
+        this.executor.awaitTermination(
+            CLOSE_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS
+        );
+        final List<Pending> rest = new ArrayList<>(this.queue.size());
+        this.queue.drainTo(rest);
+        for (int from = 0; from < rest.size(); from += this.batchSize) {
+            this.insert(
+                rest.subList(from, Math.min(from + this.batchSize, rest.size()))
+            );
+        }
+    }
+
+    private void write() {
+        final List<Pending> batch = new ArrayList<>(this.batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(this.queue.take());
+                this.queue.drainTo(batch, this.batchSize - 1);
+                this.insert(batch);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void insert(final List<Pending> batch) {
+        try {
+            this.writer.insert(
+                batch
+                    .stream()
+                    .map(queued -> queued.token)
+                    .collect(Collectors.toList())
+            );
+            batch.forEach(queued -> queued.written.complete(true));
+        } catch (final RuntimeException ex) {
+            log.error("Write of {} verification tokens failed.", batch.size(), ex);
+            batch.forEach(queued -> queued.written.completeExceptionally(ex));
+        } finally {
+            batch.forEach(
+                queued -> this.pending.remove(queued.token.getId(), queued)
+            );
+        }
+    }
+
+    /**
+     * Queued token, the future is completed when the token is written.
+     */
+    @AllArgsConstructor
+    private static final class Pending {
+        private final VerificationToken token;
+        private final CompletableFuture<Boolean> written;
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yakovlev.alexander.configuration.AppProperties;
+import ru.yakovlev.alexander.repository.JpaCaptchaPurge;
+import ru.yakovlev.alexander.repository.PurgedChunk;
+
+/**
+ * Background deletion of old captcha and their tokens from the database.
+ * Captcha created before the storage time to live are deleted
+ * by chunks of the configured size, the oldest first,
+ * with a pause between chunks to keep the database load low.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(
+    name = "app.storage.mode", havingValue = "database", matchIfMissing = true
+)
+public class CaptchaReaper implements AutoCloseable {
+    private final JpaCaptchaPurge purge;
+    private final int ttlInSeconds;
+    private final int batchSize;
+    private final long pauseInMillis;
+    private final Counter deletedCaptcha;
+    private final Counter deletedTokens;
+    private final Timer duration;
+    private final ScheduledExecutorService executor;
+
+    /**
+     * Additional constructor.
+     *
+     * @param purge         deletion of old captcha.
+     * @param appProperties application properties.
+     * @param registry      meter registry.
+     * @since 0.1
+     */
+    @Autowired
+    public CaptchaReaper(
+        final JpaCaptchaPurge purge, final AppProperties appProperties,
+        final MeterRegistry registry
+    ) {
+        this(
+            purge, appProperties.getStorage().getTtl(),
+            appProperties.getPurge(), registry
+        );
+    }
+
+    /**
+     * Primary constructor. Starts the background purge.
+     *
+     * @param purge           deletion of old captcha.
+     * @param ttlInSeconds    how long captcha and tokens are kept in seconds.
+     * @param purgeProperties purge properties.
+     * @param registry        meter registry.
+     * @since 0.1
+     */
+    public CaptchaReaper(
+        final JpaCaptchaPurge purge, final int ttlInSeconds,
+        final AppProperties.Purge purgeProperties, final MeterRegistry registry
+    ) {
+        if (ttlInSeconds <= 0) {
+            throw new IllegalArgumentException(
+                "Time to live must be greater than zero."
+            );
+        }
+        if (purgeProperties.getInterval() <= 0) {
+            throw new IllegalArgumentException(
+                "Purge interval must be greater than zero."
+            );
+        }
+        if (purgeProperties.getBatchSize() <= 0) {
+            throw new IllegalArgumentException(
+                "Purge batch size must be greater than zero."
+            );
+        }
+        if (purgeProperties.getPause() < 0) {
+            throw new IllegalArgumentException(
+                "Pause between chunks must not be negative."
+            );
+        }
+        this.purge = purge;
+        this.ttlInSeconds = ttlInSeconds;
+        this.batchSize = purgeProperties.getBatchSize();
+        this.pauseInMillis = purgeProperties.getPause();
+        this.deletedCaptcha = registry
+            .counter("captcha.purge.deleted", "entity", "captcha");
+        this.deletedTokens = registry
+            .counter("captcha.purge.deleted", "entity", "token");
+        this.duration = registry.timer("captcha.purge.duration");
+        this.executor = Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+                final Thread thread = new Thread(runnable, "captcha-reaper");
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+        this.executor.scheduleWithFixedDelay(
+            this::purgeSafely, purgeProperties.getInterval(),
+            purgeProperties.getInterval(), TimeUnit.SECONDS
+        );
+    }
+
+    /**
+     * Delete all captcha created before time to live and their tokens.
+     * Stops after the current chunk, if the thread is interrupted.
+     *
+     * @return count of deleted captcha.
+     * @since 0.1
+     */
+    public long purge() {
+        final long start = System.nanoTime();
+        final LocalDateTime expired = LocalDateTime
+            .now(ZoneOffset.UTC)
+            .minusSeconds(this.ttlInSeconds);
+        long result = 0;
+        boolean next = true;
+        while (next) {
+            final PurgedChunk chunk = this.purge
+                .deleteCreatedBefore(expired, this.batchSize);
+            this.deletedCaptcha.increment(chunk.getCaptcha());
+            this.deletedTokens.increment(chunk.getTokens());
+            result += chunk.getCaptcha();
+            next = chunk.getCaptcha() == this.batchSize && this.pause();
+        }
+        this.duration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return result;
+    }
+
+    @Override
+    public void close() {
+        this.executor.shutdownNow();
+    }
+
+    private void purgeSafely() {
+        try {
+            final long deleted = this.purge();
+            if (deleted > 0) {
+                log.info(
+                    "Purged {} captcha created over {} seconds ago.",
+                    deleted, this.ttlInSeconds
+                );
+            }
+        } catch (final RuntimeException ex) {
+            log.error("Captcha purge failed.", ex);
+        }
+    }
+
+    private boolean pause() {
+        boolean result = true;
+        if (this.pauseInMillis > 0) {
+            try {
+                Thread.sleep(this.pauseInMillis);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                result = false;
+            }
+        }
+        return result && !Thread.currentThread().isInterrupted();
+    }
+}
@@ -24,23 +24,30 @@
 
 package ru.yakovlev.alexander.service;
 
-import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 import lombok.AllArgsConstructor;
-import nl.captcha.backgrounds.SquigglesBackgroundProducer;
-import nl.captcha.noise.CurvedLineNoiseProducer;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
-import org.springframework.web.server.ResponseStatusException;
 import ru.yakovlev.alexander.configuration.AppProperties;
 import ru.yakovlev.alexander.model.Captcha;
 import ru.yakovlev.alexander.model.Client;
-import ru.yakovlev.alexander.repository.CaptchaRequestRepository;
+import ru.yakovlev.alexander.model.Failure;
+import ru.yakovlev.alexander.model.Outcome;
+import ru.yakovlev.alexander.repository.CaptchaStore;
+import ru.yakovlev.alexander.service.image.CaptchaImageCache;
+import ru.yakovlev.alexander.service.image.CaptchaImagePool;
+import ru.yakovlev.alexander.service.image.CaptchaRenderer;
+import ru.yakovlev.alexander.service.image.EncodedImage;
+import ru.yakovlev.alexander.service.image.RenderedCaptcha;
 
 /**
  * Captcha service.
+ * Storage access and take of pre-rendered captcha are timed as stages,
+ * outcomes of creation and image requests are counted.
  *
  * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
  * @since 0.1
@@ -49,93 +56,184 @@ import ru.yakovlev.alexander.repository.CaptchaRequestRepository;
 @AllArgsConstructor
 public class CaptchaService {
     private final ClientService clientService;
-    private final CaptchaRequestRepository captchaRepository;
-    private final RandomStringStream randomStringStream;
+    private final CaptchaStore captchaStore;
+    private final CaptchaImagePool imagePool;
+    private final CaptchaImageCache imageCache;
+    private final CaptchaRenderer renderer;
+    private final ReplayFilter replays;
+    private final RateLimiter rateLimiter;
+    private final StageMetrics metrics;
     private final AppProperties.Captcha captchaProperties;
 
     /**
      * Additional constructor.
      * @param clientService client service
-     * @param captchaRepository captcha repository.
-     * @param randomStringStream random string stream.
+     * @param captchaStore captcha storage.
+     * @param imagePool pool of pre-rendered captcha.
+     * @param imageCache images of created captcha.
+     * @param renderer captcha renderer.
+     * @param replays recently solved captcha.
+     * @param rateLimiter per-client limiter of created captcha.
+     * @param metrics stage metrics.
      * @param appProperties application properties.
      * @since 0.1
      */
     @Autowired
     public CaptchaService(
         final ClientService clientService,
-        final CaptchaRequestRepository captchaRepository,
-        final RandomStringStream randomStringStream,
+        final CaptchaStore captchaStore,
+        final CaptchaImagePool imagePool,
+        final CaptchaImageCache imageCache,
+        final CaptchaRenderer renderer,
+        final ReplayFilter replays,
+        @Qualifier("captchaRateLimiter") final RateLimiter rateLimiter,
+        final StageMetrics metrics,
         final AppProperties appProperties
     ) {
         this(
-            clientService, captchaRepository,
-            randomStringStream, appProperties.getCaptcha()
+            clientService, captchaStore, imagePool, imageCache, renderer,
+            replays, rateLimiter, metrics, appProperties.getCaptcha()
         );
     }
 
     /**
      * Return active(timeout is not over and not solved) captcha.
+     * Captcha of the client recently solved on this node is rejected
+     * without access to the storage.
      *
      * @param clientId  client UUID.
      * @param captchaId captcha ID.
-     * @return active captcha.
-     * @throws ResponseStatusException if not found.
+     * @return outcome with active captcha.
      * @since 0.1
      */
-    public Captcha findActiveCaptcha(
+    public Outcome<Captcha> findActiveCaptcha(
         final UUID clientId, final Long captchaId
-    ) throws ResponseStatusException {
-        final Captcha captcha = this.captchaRepository
-            .findByIdAndOwnerId(captchaId, clientId)
-            .orElseThrow(
-                () -> new ResponseStatusException(
-                    HttpStatus.NOT_FOUND,
-                    String.format(
-                        "Captcha with id: %s, for client: %s, not found.",
-                        captchaId, clientId
-                    )
+    ) {
+        final Outcome<Captcha> result;
+        if (this.replays.solved(clientId, captchaId)) {
+            result = Outcome.failure(Failure.ALREADY_SOLVED);
+        } else {
+            result = Outcome
+                .of(
+                    this.metrics.time(
+                        "captcha.find",
+                        () -> this.captchaStore
+                            .findByIdAndOwnerId(captchaId, clientId)
+                    ),
+                    Failure.CAPTCHA_NOT_FOUND
                 )
-            );
-        captcha.checkSolved();
-        captcha.checkTimeout(this.captchaProperties.getTimeout());
-        return captcha;
+                .flatMap(
+                    captcha -> captcha.active(this.captchaProperties.getTimeout())
+                );
+        }
+        return result;
     }
 
     /**
-     * Return captcha image.
+     * Return captcha PNG image.
+     * Image rendered at captcha creation is returned, if it is absent
+     * (e.g. captcha was created by another node) image will be rendered.
      *
      * @param clientId  client UUID.
      * @param captchaId captcha id.
-     * @return captcha image.
+     * @return outcome with captcha PNG image.
      * @since 0.1
      */
-    public BufferedImage captchaImage(
+    public Outcome<EncodedImage> captchaImage(
         final UUID clientId, final Long captchaId) {
-        final Captcha captcha = this.findActiveCaptcha(
-            clientId, captchaId
+        return this.metrics.count(
+            "captcha.image",
+            this.findActiveCaptcha(clientId, captchaId).map(
+                captcha -> this.imageCache
+                    .image(captcha.getId())
+                    .orElseGet(
+                        () -> {
+                            final EncodedImage image = this.renderer
+                                .render(captcha.getAnswer())
+                                .getImage();
+                            this.imageCache.put(captcha.getId(), image);
+                            return image;
+                        }
+                    )
+            )
         );
-        return new nl.captcha.Captcha
-            .Builder(200, 50)
-            .addBackground(new SquigglesBackgroundProducer())
-            .addText(captcha::getAnswer)
-            .addNoise(new CurvedLineNoiseProducer())
-            .addBorder()
-            .build()
-            .getImage();
     }
 
     /**
-     * Creates a new captcha.
+     * Creates a new captcha from pre-rendered captcha.
+     *
+     * @param clientId client UUID.
+     * @return outcome with captcha, fails if the client exceeds its rate.
+     * @since 0.1
+     */
+    public Outcome<Captcha> createNew(final UUID clientId) {
+        final Outcome<Captcha> result;
+        if (this.rateLimiter.tryAcquire(clientId, 1)) {
+            result = this.clientService.saveFor(
+                clientId,
+                client -> {
+                    final RenderedCaptcha rendered = this.metrics.time(
+                        "pool.take", this.imagePool::take
+                    );
+                    final Captcha captcha = this.metrics.time(
+                        "captcha.save",
+                        () -> this.captchaStore.save(
+                            new Captcha(client, rendered.getAnswer())
+                        )
+                    );
+                    this.imageCache.put(captcha.getId(), rendered.getImage());
+                    return captcha;
+                }
+            );
+        } else {
+            result = Outcome.failure(Failure.RATE_LIMITED);
+        }
+        return this.metrics.count("captcha.create", result);
+    }
+
+    /**
+     * Creates several captcha at once.
      *
      * @param clientId client UUID.
-     * @return captcha.
+     * @param count    count of captcha.
+     * @return outcome with captcha, fails if count is out of allowed range
+     *     or the client exceeds its rate.
      * @since 0.1
      */
-    public Captcha createNew(final UUID clientId) {
-        final Client client = this.clientService.findById(clientId);
-        return this.captchaRepository.save(
-            new Captcha(client, this.randomStringStream.next())
+    public Outcome<List<Captcha>> createBatch(
+        final UUID clientId, final int count
+    ) {
+        final Outcome<List<Captcha>> result;
+        if (count <= 0 || count > this.captchaProperties.getBatchLimit()) {
+            result = Outcome.failure(Failure.WRONG_BATCH_SIZE);
+        } else if (!this.rateLimiter.tryAcquire(clientId, count)) {
+            result = Outcome.failure(Failure.RATE_LIMITED);
+        } else {
+            result = this.clientService.saveFor(
+                clientId, client -> this.createBatch(client, count)
+            );
+        }
+        return this.metrics.count("captcha.batch", result);
+    }
+
+    private List<Captcha> createBatch(final Client client, final int count) {
+        final List<RenderedCaptcha> rendered = new ArrayList<>(count);
+        final List<Captcha> captcha = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final RenderedCaptcha next = this.metrics.time(
+                "pool.take", this.imagePool::take
+            );
+            rendered.add(next);
+            captcha.add(new Captcha(client, next.getAnswer()));
+        }
+        final List<Captcha> saved = this.metrics.time(
+            "captcha.save.batch", () -> this.captchaStore.saveAll(captcha)
         );
+        for (int i = 0; i < count; i++) {
+            this.imageCache.put(
+                saved.get(i).getId(), rendered.get(i).getImage()
+            );
+        }
+        return saved;
     }
 }
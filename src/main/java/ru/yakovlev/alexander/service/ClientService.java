@@ -24,17 +24,28 @@
 
 package ru.yakovlev.alexander.service;
 
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import lombok.AllArgsConstructor;
-import org.springframework.http.HttpStatus;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.web.server.ResponseStatusException;
 import ru.yakovlev.alexander.model.Client;
+import ru.yakovlev.alexander.model.Failure;
+import ru.yakovlev.alexander.model.Outcome;
 import ru.yakovlev.alexander.repository.ClientRepository;
 
 /**
  * Client service.
+ * Clients are almost never modified after registration,
+ * so found clients are cached for a short time. A client removed
+ * on another node is visible here no longer than the cache time to live,
+ * data saved for such client is rejected by the database and the client
+ * is removed from the cache.
+ * Storage access is timed as stages {@code client.save}
+ * and {@code client.find}, the latter includes the cache lookup.
  *
  * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
  * @since 0.1
@@ -43,6 +54,8 @@ import ru.yakovlev.alexander.repository.ClientRepository;
 @AllArgsConstructor
 public class ClientService {
     private final ClientRepository clientRepository;
+    private final Cache<UUID, Client> clients;
+    private final StageMetrics metrics;
 
     /**
      * Register new client.
@@ -51,29 +64,64 @@ public class ClientService {
      * @since 0.1
      */
     public Client registerClient() {
-        return this.clientRepository.save(
-            new Client(UUID.randomUUID())
+        final Client client = this.metrics.time(
+            "client.save",
+            () -> this.clientRepository.save(new Client(UUID.randomUUID()))
         );
+        this.clients.put(client.getId(), client);
+        return client;
     }
 
     /**
      * Find client by UUID.
      *
      * @param clientId client UUID.
-     * @return client.
-     * @throws ResponseStatusException if client not found.
+     * @return outcome with client.
      * @since 0.1
      */
-    public Client findById(final UUID clientId) throws ResponseStatusException {
-        return this.clientRepository
-            .findById(clientId)
-            .orElseThrow(
-                () -> new ResponseStatusException(
-                    HttpStatus.NOT_FOUND,
-                    String.format(
-                        "Client with id: %s not found.", clientId
+    public Outcome<Client> findById(final UUID clientId) {
+        return Outcome.of(
+            Optional.ofNullable(
+                this.metrics.time(
+                    "client.find",
+                    () -> this.clients.get(
+                        clientId,
+                        id -> this.clientRepository.findById(id).orElse(null)
                     )
                 )
-            );
+            ),
+            Failure.CLIENT_NOT_FOUND
+        );
+    }
+
+    /**
+     * Save data of the client found by UUID. If the cached client
+     * has been deleted, the save violates the foreign key: the client
+     * is removed from the cache and the outcome fails as if it is not found.
+     *
+     * @param clientId client UUID.
+     * @param save     save of the client data.
+     * @param <T>      type of saved data.
+     * @return outcome with saved data.
+     * @since 0.1
+     */
+    public <T> Outcome<T> saveFor(
+        final UUID clientId, final Function<Client, T> save
+    ) {
+        return this.findById(clientId).flatMap(
+            client -> {
+                Outcome<T> result;
+                try {
+                    result = Outcome.success(save.apply(client));
+                } catch (final DataIntegrityViolationException ex) {
+                    this.clients.invalidate(clientId);
+                    if (this.clientRepository.existsById(clientId)) {
+                        throw ex;
+                    }
+                    result = Outcome.failure(Failure.CLIENT_NOT_FOUND);
+                }
+                return result;
+            }
+        );
     }
 }
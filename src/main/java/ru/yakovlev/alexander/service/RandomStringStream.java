@@ -25,24 +25,49 @@
 package ru.yakovlev.alexander.service;
 
 import java.security.SecureRandom;
+import java.util.function.Supplier;
 
 /**
  * Endless stream of random strings.
+ * Random bytes are drawn from secure random in blocks and mapped
+ * to characters by rejection sampling, so all characters are equally likely.
  *
  * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
  * @since 0.1
  */
 public class RandomStringStream {
+
+    /**
+     * Size of the block of random bytes drawn at once.
+     */
+    private static final int BLOCK_SIZE = 256;
+    private static final int BYTE_RANGE = 256;
     private final int length;
 
     /**
      * Array of characters from which the string will be built.
      */
     private final char[] chars;
-    private final SecureRandom secureRandom;
 
     /**
-     * Primary constructor.
+     * Secure random of the current thread.
+     */
+    private final Supplier<SecureRandom> secureRandom;
+
+    /**
+     * Count of random bytes per one sample: one for alphabets
+     * up to 256 characters, otherwise two.
+     */
+    private final int sampleBytes;
+
+    /**
+     * Samples greater or equal to this limit are rejected.
+     */
+    private final int sampleLimit;
+    private final ThreadLocal<Block> blocks = ThreadLocal.withInitial(Block::new);
+
+    /**
+     * Additional constructor with the same secure random for all threads.
      * @param length result string length.
      * @param chars array of characters from which the string will be built.
      * @param secureRandom secure random.
@@ -50,6 +75,19 @@ public class RandomStringStream {
     public RandomStringStream(
         final int length, final char[] chars,
         final SecureRandom secureRandom
+    ) {
+        this(length, chars, () -> secureRandom);
+    }
+
+    /**
+     * Primary constructor.
+     * @param length result string length.
+     * @param chars array of characters from which the string will be built.
+     * @param secureRandom secure random of the current thread.
+     */
+    public RandomStringStream(
+        final int length, final char[] chars,
+        final Supplier<SecureRandom> secureRandom
     ) {
         if (length <= 0) {
             throw new IllegalArgumentException(
@@ -64,6 +102,23 @@ public class RandomStringStream {
         this.length = length;
         this.chars = chars;
         this.secureRandom = secureRandom;
+        if (chars.length <= BYTE_RANGE) {
+            this.sampleBytes = 1;
+        } else {
+            this.sampleBytes = 2;
+        }
+        final int range = 1 << (Byte.SIZE * this.sampleBytes);
+        this.sampleLimit = range - range % chars.length;
+    }
+
+    /**
+     * Length of each random string.
+     *
+     * @return length of string.
+     * @since 0.1
+     */
+    public int length() {
+        return this.length;
     }
 
     /**
@@ -73,11 +128,84 @@ public class RandomStringStream {
      * @since 0.1
      */
     public String next() {
-        final StringBuilder builder = new StringBuilder();
-        for (int i = 0; i < this.length; i++) {
-            final int index = this.secureRandom.nextInt(this.chars.length);
-            builder.append(this.chars[index]);
+        final char[] buffer = new char[this.length];
+        this.fill(buffer, 1);
+        return new String(buffer);
+    }
+
+    /**
+     * Generates several random strings at once.
+     *
+     * @param count count of strings.
+     * @return random strings.
+     * @since 0.1
+     */
+    public String[] next(final int count) {
+        final char[] buffer = new char[count * this.length];
+        this.fill(buffer, count);
+        final String[] result = new String[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = new String(buffer, i * this.length, this.length);
+        }
+        return result;
+    }
+
+    /**
+     * Fills the buffer with random strings written one after another,
+     * string with index i starts at position i * length.
+     * Does not allocate memory.
+     *
+     * @param buffer buffer of at least count * length characters.
+     * @param count  count of strings.
+     * @since 0.1
+     */
+    public void fill(final char[] buffer, final int count) {
+        final int total = count * this.length;
+        if (count < 0 || buffer.length < total) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Buffer of %d characters can not hold %d strings of length %d.",
+                    buffer.length, count, this.length
+                )
+            );
+        }
+        final SecureRandom random = this.secureRandom.get();
+        final Block block = this.blocks.get();
+        for (int i = 0; i < total; i++) {
+            int sample = block.sample(random, this.sampleBytes);
+            while (sample >= this.sampleLimit) {
+                sample = block.sample(random, this.sampleBytes);
+            }
+            buffer[i] = this.chars[sample % this.chars.length];
+        }
+    }
+
+    /**
+     * Block of random bytes of the current thread.
+     */
+    private static final class Block {
+        private final byte[] bytes = new byte[BLOCK_SIZE];
+        private int position = BLOCK_SIZE;
+
+        /**
+         * Unsigned number built from the next random bytes.
+         *
+         * @param random secure random to refill the block.
+         * @param count  count of bytes.
+         * @return random number.
+         */
+        int sample(final SecureRandom random, final int count) {
+            int result = 0;
+            for (int i = 0; i < count; i++) {
+                if (this.position == this.bytes.length) {
+                    random.nextBytes(this.bytes);
+                    this.position = 0;
+                }
+                result = result << Byte.SIZE
+                    | Byte.toUnsignedInt(this.bytes[this.position]);
+                this.position++;
+            }
+            return result;
         }
-        return builder.toString();
     }
 }
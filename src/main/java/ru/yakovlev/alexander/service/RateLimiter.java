@@ -0,0 +1,119 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.service;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Per-client token bucket rate limiter.
+ * The bucket of a client is a single time of the next free permit
+ * (generic cell rate algorithm) updated by compare-and-set,
+ * so requests are not locked. Buckets are kept in a bounded cache
+ * and expire when they would be full anyway.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+public class RateLimiter {
+    private static final long NANOS_IN_SECOND = TimeUnit.SECONDS.toNanos(1L);
+    private final long origin = System.nanoTime();
+
+    /**
+     * Time for one permit in nanoseconds, zero if rate is not limited.
+     */
+    private final long interval;
+
+    /**
+     * Time of the burst in nanoseconds.
+     */
+    private final long tolerance;
+    private final Cache<UUID, AtomicLong> buckets;
+
+    /**
+     * Primary constructor.
+     *
+     * @param rate    permits per second, zero disables the limit.
+     * @param burst   max count of permits taken at once.
+     * @param clients max count of clients with buckets.
+     * @since 0.1
+     */
+    public RateLimiter(final double rate, final int burst, final long clients) {
+        if (rate < 0) {
+            throw new IllegalArgumentException("Rate must not be negative.");
+        }
+        if (burst <= 0) {
+            throw new IllegalArgumentException(
+                "Burst must be greater than zero."
+            );
+        }
+        if (rate > 0) {
+            this.interval = Math.max(1L, (long) (NANOS_IN_SECOND / rate));
+        } else {
+            this.interval = 0L;
+        }
+        this.tolerance = this.interval * burst;
+        this.buckets = Caffeine
+            .newBuilder()
+            .maximumSize(clients)
+            .expireAfterAccess(
+                Math.max(this.tolerance, NANOS_IN_SECOND), TimeUnit.NANOSECONDS
+            )
+            .build();
+    }
+
+    /**
+     * Take permits of the client, if they are available.
+     *
+     * @param clientId client id.
+     * @param permits  count of permits.
+     * @return true if permits are taken.
+     * @since 0.1
+     */
+    public boolean tryAcquire(final UUID clientId, final int permits) {
+        final boolean result;
+        if (this.interval == 0L) {
+            result = true;
+        } else {
+            final AtomicLong bucket = this.buckets
+                .get(clientId, id -> new AtomicLong());
+            final long now = System.nanoTime() - this.origin;
+            final long cost = this.interval * permits;
+            long current;
+            long next;
+            do {
+                current = bucket.get();
+                next = Math.max(current, now) + cost;
+            } while (next - now <= this.tolerance
+                && !bucket.compareAndSet(current, next));
+            result = next - now <= this.tolerance;
+        }
+        return result;
+    }
+}
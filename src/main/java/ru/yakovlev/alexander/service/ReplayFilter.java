@@ -0,0 +1,224 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.service;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Ids of recently activated tokens and solved captcha on this node
+ * by their owners. Replays of them by the owner are rejected without access
+ * to the storage, the same id of another client is not known here.
+ * Ids are kept in sparse bitsets of two generations rotated every window,
+ * so an id is remembered at least for one window. A generation is a map
+ * of 64 bit words by owner and index, a word costs about 100 bytes.
+ * Ids come from sequences shared by all clients, so ids of a client
+ * are sparse under load and usually take a word each. The count of words
+ * in a generation is bounded: when it is full, new ids are not remembered
+ * until the rotation.
+ * Absent id means nothing: the storage is still the source of truth.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+public class ReplayFilter implements AutoCloseable {
+    private final IdBits tokens;
+    private final IdBits captcha;
+    private final ScheduledExecutorService rotator;
+
+    /**
+     * Primary constructor. Starts background rotation.
+     *
+     * @param windowInSeconds how long ids are remembered, captcha timeout.
+     * @param size            max count of words of tokens and of captcha
+     *                        in a generation.
+     * @since 0.1
+     */
+    public ReplayFilter(final int windowInSeconds, final long size) {
+        if (windowInSeconds <= 0) {
+            throw new IllegalArgumentException(
+                "Window must be greater than zero."
+            );
+        }
+        if (size <= 0) {
+            throw new IllegalArgumentException(
+                "Size must be greater than zero."
+            );
+        }
+        this.tokens = new IdBits(size);
+        this.captcha = new IdBits(size);
+        this.rotator = Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+                final Thread thread = new Thread(
+                    runnable, "replay-filter-rotator"
+                );
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+        this.rotator.scheduleWithFixedDelay(
+            this::rotate, windowInSeconds, windowInSeconds, TimeUnit.SECONDS
+        );
+    }
+
+    /**
+     * Check whether the token of the client is known to be activated.
+     *
+     * @param clientId client id.
+     * @param tokenId  token id.
+     * @return true if the token has been activated.
+     * @since 0.1
+     */
+    public boolean activated(final UUID clientId, final Long tokenId) {
+        return this.tokens.contains(clientId, tokenId);
+    }
+
+    /**
+     * Remember activated token of the client.
+     *
+     * @param clientId client id.
+     * @param tokenId  token id.
+     * @since 0.1
+     */
+    public void activate(final UUID clientId, final Long tokenId) {
+        this.tokens.add(clientId, tokenId);
+    }
+
+    /**
+     * Check whether the captcha of the client is known to be solved.
+     *
+     * @param clientId  client id.
+     * @param captchaId captcha id.
+     * @return true if the captcha has been solved.
+     * @since 0.1
+     */
+    public boolean solved(final UUID clientId, final Long captchaId) {
+        return this.captcha.contains(clientId, captchaId);
+    }
+
+    /**
+     * Remember solved captcha of the client.
+     *
+     * @param clientId  client id.
+     * @param captchaId captcha id.
+     * @since 0.1
+     */
+    public void solve(final UUID clientId, final Long captchaId) {
+        this.captcha.add(clientId, captchaId);
+    }
+
+    /**
+     * Forget ids of the previous window.
+     *
+     * @since 0.1
+     */
+    public void rotate() {
+        this.tokens.rotate();
+        this.captcha.rotate();
+    }
+
+    @Override
+    public void close() {
+        this.rotator.shutdownNow();
+    }
+
+    /**
+     * Sparse bitset of ids in two generations: words of 64 ids
+     * by owner and index, at most the size of words in a generation.
+     * Concurrent rotation can hide a just added id from a reader,
+     * it is harmless, because the storage is checked then.
+     */
+    private static final class IdBits {
+        private static final int WORD_SHIFT = 6;
+        private static final long BIT_MASK = 63L;
+        private final long size;
+        private volatile Map<Word, AtomicLong> current
+            = new ConcurrentHashMap<>();
+        private volatile Map<Word, AtomicLong> previous
+            = new ConcurrentHashMap<>();
+
+        IdBits(final long size) {
+            this.size = size;
+        }
+
+        /**
+         * Add id. Concurrent adds can exceed the size by a few words.
+         *
+         * @param owner owner of the id.
+         * @param id    id.
+         */
+        void add(final UUID owner, final long id) {
+            final Map<Word, AtomicLong> words = this.current;
+            final Word key = new Word(owner, id >>> WORD_SHIFT);
+            final AtomicLong word;
+            if (words.size() < this.size) {
+                word = words.computeIfAbsent(key, index -> new AtomicLong());
+            } else {
+                word = words.get(key);
+            }
+            if (Objects.nonNull(word)) {
+                word.accumulateAndGet(IdBits.bit(id), (bits, bit) -> bits | bit);
+            }
+        }
+
+        boolean contains(final UUID owner, final long id) {
+            final Word word = new Word(owner, id >>> WORD_SHIFT);
+            return IdBits.contains(this.current, word, id)
+                || IdBits.contains(this.previous, word, id);
+        }
+
+        void rotate() {
+            this.previous = this.current;
+            this.current = new ConcurrentHashMap<>();
+        }
+
+        private static boolean contains(
+            final Map<Word, AtomicLong> words, final Word key, final long id
+        ) {
+            final AtomicLong word = words.get(key);
+            return Objects.nonNull(word) && (word.get() & IdBits.bit(id)) != 0;
+        }
+
+        private static long bit(final long id) {
+            return 1L << (id & BIT_MASK);
+        }
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static final class Word {
+        private final UUID owner;
+        private final long index;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.service;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.stereotype.Component;
+import ru.yakovlev.alexander.model.Outcome;
+
+/**
+ * Metrics of the captcha pipeline.
+ * Duration of each stage (answer generation, rendering, encoding,
+ * storage access) is recorded by the timer {@value #STAGE} tagged
+ * with the stage name, results of the operations are counted by
+ * {@value #OUTCOME} tagged with the operation and its result.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+@Component
+public class StageMetrics {
+
+    /**
+     * Name of the stage timer.
+     */
+    public static final String STAGE = "captcha.stage";
+
+    /**
+     * Name of the outcome counter.
+     */
+    public static final String OUTCOME = "captcha.outcome";
+
+    /**
+     * Result of the successful operation.
+     */
+    public static final String SUCCESS = "success";
+    private final MeterRegistry registry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Primary constructor.
+     *
+     * @param registry meter registry.
+     * @since 0.1
+     */
+    public StageMetrics(final MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Return metrics which are not published anywhere.
+     *
+     * @return stage metrics.
+     * @since 0.1
+     */
+    public static StageMetrics disabled() {
+        return new StageMetrics(new CompositeMeterRegistry());
+    }
+
+    /**
+     * Execute the stage and record its duration.
+     *
+     * @param stage    stage name.
+     * @param supplier stage.
+     * @param <T>      type of the stage result.
+     * @return stage result.
+     * @since 0.1
+     */
+    public <T> T time(final String stage, final Supplier<T> supplier) {
+        return this.timer(stage).record(supplier);
+    }
+
+    /**
+     * Execute the stage and record its duration.
+     *
+     * @param stage    stage name.
+     * @param runnable stage.
+     * @since 0.1
+     */
+    public void time(final String stage, final Runnable runnable) {
+        this.timer(stage).record(runnable);
+    }
+
+    /**
+     * Count the outcome of the operation.
+     * Failed outcome is counted with the lower case name of its failure.
+     *
+     * @param operation operation name.
+     * @param outcome   outcome of the operation.
+     * @param <T>       type of the outcome value.
+     * @return the same outcome.
+     * @since 0.1
+     */
+    public <T> Outcome<T> count(
+        final String operation, final Outcome<T> outcome
+    ) {
+        final String result;
+        if (outcome.isSuccess()) {
+            result = SUCCESS;
+        } else {
+            result = outcome.getFailure().name().toLowerCase(Locale.ROOT);
+        }
+        this.count(operation, result);
+        return outcome;
+    }
+
+    /**
+     * Count the result of the operation.
+     *
+     * @param operation operation name.
+     * @param result    result name.
+     * @since 0.1
+     */
+    public void count(final String operation, final String result) {
+        this.counters
+            .computeIfAbsent(
+                String.join(":", operation, result),
+                key -> this.registry.counter(
+                    OUTCOME, "operation", operation, "result", result
+                )
+            )
+            .increment();
+    }
+
+    private Timer timer(final String stage) {
+        return this.timers.computeIfAbsent(
+            stage, key -> this.registry.timer(STAGE, "stage", stage)
+        );
+    }
+}
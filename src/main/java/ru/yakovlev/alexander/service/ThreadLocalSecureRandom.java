@@ -0,0 +1,123 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.service;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Thread local secure random generators.
+ * Each thread gets its own generator, so generators are created
+ * and seeded once per thread and are not shared between threads.
+ * Generators are periodically reseeded from the operating system entropy.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+public class ThreadLocalSecureRandom implements Supplier<SecureRandom> {
+    private static final int SEED_LENGTH = 32;
+    private final String algorithm;
+    private final long reseedIntervalInNanos;
+
+    /**
+     * Source of seeds, non-blocking generator of the operating system.
+     */
+    private final SecureRandom seedSource;
+    private final ThreadLocal<Generator> generators;
+
+    /**
+     * Primary constructor.
+     *
+     * @param algorithm       secure random algorithm, for example SHA1PRNG.
+     * @param reseedInSeconds interval between reseeds in seconds.
+     * @throws NoSuchAlgorithmException if algorithm is not available.
+     * @since 0.1
+     */
+    public ThreadLocalSecureRandom(
+        final String algorithm, final int reseedInSeconds
+    ) throws NoSuchAlgorithmException {
+        if (reseedInSeconds <= 0) {
+            throw new IllegalArgumentException(
+                "Reseed interval must be greater than zero."
+            );
+        }
+        // Fails fast if the algorithm is not available.
+        SecureRandom.getInstance(algorithm);
+        this.algorithm = algorithm;
+        this.reseedIntervalInNanos = TimeUnit.SECONDS.toNanos(reseedInSeconds);
+        this.seedSource = new SecureRandom();
+        this.generators = ThreadLocal.withInitial(this::newGenerator);
+    }
+
+    /**
+     * Return secure random of the current thread.
+     * Returned generator must not be passed to another thread.
+     *
+     * @return secure random.
+     * @since 0.1
+     */
+    @Override
+    public SecureRandom get() {
+        final Generator generator = this.generators.get();
+        final long now = System.nanoTime();
+        if (now - generator.seeded > this.reseedIntervalInNanos) {
+            generator.random.setSeed(this.seed());
+            generator.seeded = now;
+        }
+        return generator.random;
+    }
+
+    private Generator newGenerator() {
+        final SecureRandom random;
+        try {
+            random = SecureRandom.getInstance(this.algorithm);
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+        random.setSeed(this.seed());
+        return new Generator(random, System.nanoTime());
+    }
+
+    private byte[] seed() {
+        final byte[] seed = new byte[SEED_LENGTH];
+        this.seedSource.nextBytes(seed);
+        return seed;
+    }
+
+    /**
+     * Secure random with time of the last seed.
+     */
+    private static final class Generator {
+        private final SecureRandom random;
+        private long seeded;
+
+        Generator(final SecureRandom random, final long seeded) {
+            this.random = random;
+            this.seeded = seeded;
+        }
+    }
+}
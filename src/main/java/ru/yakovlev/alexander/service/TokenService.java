@@ -24,22 +24,30 @@
 
 package ru.yakovlev.alexander.service;
 
-import javax.transaction.Transactional;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
-import org.springframework.web.server.ResponseStatusException;
 import ru.yakovlev.alexander.configuration.AppProperties;
-import ru.yakovlev.alexander.model.Captcha;
-import ru.yakovlev.alexander.model.dto.CaptchaCheckResult;
+import ru.yakovlev.alexander.model.Client;
+import ru.yakovlev.alexander.model.Failure;
+import ru.yakovlev.alexander.model.Outcome;
 import ru.yakovlev.alexander.model.VerificationToken;
-import ru.yakovlev.alexander.repository.VerificationTokenRepository;
+import ru.yakovlev.alexander.model.dto.CaptchaCheckResult;
+import ru.yakovlev.alexander.repository.TokenStore;
 
 /**
  * Verification token service.
+ * Storage access is timed as stages, outcomes of solving, activation
+ * and check requests are counted. Activated token is counted
+ * as {@code solved} or {@code wrong_answer}.
  *
  * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
  * @since 0.1
@@ -49,27 +57,41 @@ import ru.yakovlev.alexander.repository.VerificationTokenRepository;
 public class TokenService {
     private final ClientService clientService;
     private final CaptchaService captchaService;
-    private final VerificationTokenRepository tokenRepository;
+    private final TokenStore tokenStore;
+    private final ReplayFilter replays;
+    private final RateLimiter rateLimiter;
+    private final StageMetrics metrics;
     private final AppProperties.Captcha captchaProperties;
 
+    /**
+     * Activations running on this node.
+     * The value is completed with true if the token has been activated.
+     */
+    private final Map<Activation, CompletableFuture<Boolean>> activations
+        = new ConcurrentHashMap<>();
+
     /**
      * Additional constructor.
      *
      * @param clientService   client service.
      * @param captchaService  captcha service.
-     * @param tokenRepository token repository.
+     * @param tokenStore      token storage.
+     * @param replays         recently activated tokens and solved captcha.
+     * @param rateLimiter     per-client limiter of solve requests.
+     * @param metrics         stage metrics.
      * @param appProperties   application properties.
      * @since 0.1
      */
     @Autowired
     public TokenService(
         final ClientService clientService, final CaptchaService captchaService,
-        final VerificationTokenRepository tokenRepository,
-        final AppProperties appProperties
+        final TokenStore tokenStore, final ReplayFilter replays,
+        @Qualifier("solveRateLimiter") final RateLimiter rateLimiter,
+        final StageMetrics metrics, final AppProperties appProperties
     ) {
         this(
-            clientService, captchaService,
-            tokenRepository, appProperties.getCaptcha()
+            clientService, captchaService, tokenStore, replays,
+            rateLimiter, metrics, appProperties.getCaptcha()
         );
     }
 
@@ -79,25 +101,20 @@ public class TokenService {
      * @param clientId  client UUID.
      * @param captchaId captcha ID.
      * @param tokenId   token ID.
-     * @return verification token.
-     * @throws ResponseStatusException if not found.
+     * @return outcome with verification token.
      * @since 0.1
      */
-    public VerificationToken findByIdsWithFetch(
+    public Outcome<VerificationToken> findByIdsWithFetch(
         final UUID clientId, final Long captchaId, final Long tokenId
-    ) throws ResponseStatusException {
-        return this.tokenRepository
-            .findByIdsWithFetch(clientId, captchaId, tokenId)
-            .orElseThrow(
-                () -> new ResponseStatusException(
-                    HttpStatus.NOT_FOUND,
-                    String.format(
-                        "Verification token for client id: %s, captcha id: %s "
-                            + "and token id: %s not found.",
-                        clientId, captchaId, tokenId
-                    )
-                )
-            );
+    ) {
+        return Outcome.of(
+            this.metrics.time(
+                "token.find",
+                () -> this.tokenStore
+                    .findByIdsWithFetch(clientId, captchaId, tokenId)
+            ),
+            Failure.TOKEN_NOT_FOUND
+        );
     }
 
     /**
@@ -106,41 +123,69 @@ public class TokenService {
      * @param clientId  client UUID.
      * @param captchaId captcha ID.
      * @param answer    answer to captcha.
-     * @return token.
+     * @return outcome with token, fails if the client exceeds its rate.
      * @since 0.1
      */
-    public VerificationToken create(
+    public Outcome<VerificationToken> create(
         final UUID clientId, final Long captchaId, final String answer
     ) {
-        final Captcha captcha = this.captchaService
-            .findActiveCaptcha(clientId, captchaId);
-        final VerificationToken token = new VerificationToken(answer, captcha);
-        this.tokenRepository.save(token);
-        return token;
+        final Outcome<VerificationToken> result;
+        if (this.rateLimiter.tryAcquire(clientId, 1)) {
+            result = this.captchaService
+                .findActiveCaptcha(clientId, captchaId)
+                .map(
+                    captcha -> this.metrics.time(
+                        "token.save",
+                        () -> this.tokenStore.save(
+                            new VerificationToken(answer, captcha)
+                        )
+                    )
+                );
+        } else {
+            result = Outcome.failure(Failure.RATE_LIMITED);
+        }
+        return this.metrics.count("token.create", result);
     }
 
     /**
      * Verification token activation. Token can be activated only once.
+     * Token recently activated on this node is rejected without access
+     * to the storage, if the client owns it and the secret key is right,
+     * activated tokens and solved captcha are remembered by the client.
      *
      * @param clientId  client id.
      * @param captchaId captcha id.
      * @param tokenId   verification token id.
      * @param secretKey client secret key.
-     * @return captcha check result.
+     * @return outcome with captcha check result.
      * @since 0.1
      */
-    @Transactional
-    public CaptchaCheckResult activate(
+    public Outcome<CaptchaCheckResult> activate(
         final UUID clientId, final Long captchaId,
         final Long tokenId, final UUID secretKey
     ) {
-        final VerificationToken token = this.findByIdsWithFetch(
-            clientId, captchaId, tokenId
-        );
-        final CaptchaCheckResult result = token.activate(
-            secretKey, this.captchaProperties.getTimeout()
-        );
-        this.tokenRepository.save(token);
+        final Outcome<CaptchaCheckResult> result;
+        if (this.replays.activated(clientId, tokenId)
+            && this.authenticated(clientId, secretKey)) {
+            result = Outcome.failure(Failure.ALREADY_ACTIVATED);
+        } else {
+            result = this.activateOnce(clientId, captchaId, tokenId, secretKey);
+            if (result.isSuccess()
+                || result.getFailure() == Failure.ALREADY_ACTIVATED) {
+                this.replays.activate(clientId, tokenId);
+            }
+            if (result.isSuccess() && result.getValue().isSuccess()
+                || result.getFailure() == Failure.ALREADY_SOLVED) {
+                this.replays.solve(clientId, captchaId);
+            }
+        }
+        if (result.isSuccess() && result.getValue().isSuccess()) {
+            this.metrics.count("token.activate", "solved");
+        } else if (result.isSuccess()) {
+            this.metrics.count("token.activate", "wrong_answer");
+        } else {
+            this.metrics.count("token.activate", result);
+        }
         return result;
     }
 
@@ -149,16 +194,77 @@ public class TokenService {
      * @param clientId client UUID.
      * @param captchaId captcha ID.
      * @param tokenId token ID.
-     * @return result of a captcha check.
+     * @return outcome with result of a captcha check.
      * @since 0.1
      */
-    public CaptchaCheckResult resultOfCaptchaCheck(
+    public Outcome<CaptchaCheckResult> resultOfCaptchaCheck(
         final UUID clientId, final Long captchaId,
         final Long tokenId
     ) {
-        final VerificationToken token = this.findByIdsWithFetch(
-            clientId, captchaId, tokenId
+        return this.metrics.count(
+            "token.check",
+            this.findByIdsWithFetch(clientId, captchaId, tokenId)
+                .flatMap(VerificationToken::resultOfCaptchaCheck)
+        );
+    }
+
+    private boolean authenticated(final UUID clientId, final UUID secretKey) {
+        final Outcome<Client> client = this.clientService.findById(clientId);
+        return client.isSuccess() && client.getValue().authenticated(secretKey);
+    }
+
+    /**
+     * Activate the token in the storage.
+     * Concurrent activations of the same token with the same secret key
+     * on this node wait for the first one. If it has activated the token,
+     * they fail without access to the storage, otherwise they are repeated.
+     *
+     * @param clientId  client id.
+     * @param captchaId captcha id.
+     * @param tokenId   verification token id.
+     * @param secretKey client secret key.
+     * @return outcome with captcha check result.
+     */
+    private Outcome<CaptchaCheckResult> activateOnce(
+        final UUID clientId, final Long captchaId,
+        final Long tokenId, final UUID secretKey
+    ) {
+        final Activation activation = new Activation(
+            clientId, captchaId, tokenId, secretKey
         );
-        return token.resultOfCaptchaCheck();
+        final CompletableFuture<Boolean> own = new CompletableFuture<>();
+        final CompletableFuture<Boolean> running = this.activations
+            .putIfAbsent(activation, own);
+        final Outcome<CaptchaCheckResult> result;
+        if (Objects.isNull(running)) {
+            boolean activated = false;
+            try {
+                result = this.metrics.time(
+                    "token.activate",
+                    () -> this.tokenStore.activate(
+                        clientId, captchaId, tokenId,
+                        secretKey, this.captchaProperties.getTimeout()
+                    )
+                );
+                activated = result.isSuccess();
+            } finally {
+                this.activations.remove(activation, own);
+                own.complete(activated);
+            }
+        } else if (running.join()) {
+            result = Outcome.failure(Failure.ALREADY_ACTIVATED);
+        } else {
+            result = this.activateOnce(clientId, captchaId, tokenId, secretKey);
+        }
+        return result;
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static final class Activation {
+        private final UUID clientId;
+        private final Long captchaId;
+        private final Long tokenId;
+        private final UUID secretKey;
     }
 }
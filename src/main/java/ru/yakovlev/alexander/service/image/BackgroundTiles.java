@@ -0,0 +1,198 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.service.image;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import lombok.extern.slf4j.Slf4j;
+import nl.captcha.backgrounds.BackgroundProducer;
+
+/**
+ * Cache of pre-generated captcha backgrounds.
+ * Tiles a half larger than the image are generated by the producer
+ * at start and regenerated in the background, so bots can not learn
+ * the tile set. The background of an image is a random crop
+ * of a random tile copied row by row.
+ * Backgrounds of other sizes are generated by the producer.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+@Slf4j
+public class BackgroundTiles implements BackgroundProducer, AutoCloseable {
+    private static final int RGB = 0xFFFFFF;
+    private final int width;
+    private final int height;
+    private final int tileWidth;
+    private final int tileHeight;
+    private final BackgroundProducer producer;
+    private final AtomicReferenceArray<int[]> tiles;
+    private final ScheduledExecutorService refresher;
+
+    /**
+     * Primary constructor. Generates tiles and starts their refresh.
+     *
+     * @param width            image width.
+     * @param height           image height.
+     * @param count            count of tiles.
+     * @param refreshInSeconds interval between refreshes of all tiles.
+     * @param producer         producer of tiles.
+     * @since 0.1
+     */
+    public BackgroundTiles(
+        final int width, final int height, final int count,
+        final int refreshInSeconds, final BackgroundProducer producer
+    ) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException(
+                "Image size must be greater than zero."
+            );
+        }
+        if (count <= 0) {
+            throw new IllegalArgumentException(
+                "Count of tiles must be greater than zero."
+            );
+        }
+        if (refreshInSeconds <= 0) {
+            throw new IllegalArgumentException(
+                "Refresh interval must be greater than zero."
+            );
+        }
+        this.width = width;
+        this.height = height;
+        this.tileWidth = width + width / 2;
+        this.tileHeight = height + height / 2;
+        this.producer = producer;
+        this.tiles = new AtomicReferenceArray<>(count);
+        this.refresh();
+        this.refresher = Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+                final Thread thread = new Thread(
+                    runnable, "captcha-background-refresher"
+                );
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+        this.refresher.scheduleWithFixedDelay(
+            this::refreshSafely, refreshInSeconds,
+            refreshInSeconds, TimeUnit.SECONDS
+        );
+    }
+
+    /**
+     * Copy random background into the pixels of an RGB image.
+     *
+     * @param pixels pixels of the image of the configured size.
+     * @since 0.1
+     */
+    public void fill(final int[] pixels) {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final int[] tile = this.tiles.get(random.nextInt(this.tiles.length()));
+        final int left = random.nextInt(this.tileWidth - this.width + 1);
+        final int top = random.nextInt(this.tileHeight - this.height + 1);
+        for (int y = 0; y < this.height; y++) {
+            System.arraycopy(
+                tile, (top + y) * this.tileWidth + left,
+                pixels, y * this.width, this.width
+            );
+        }
+    }
+
+    @Override
+    public BufferedImage getBackground(
+        final int imageWidth, final int imageHeight
+    ) {
+        final BufferedImage result;
+        if (imageWidth == this.width && imageHeight == this.height) {
+            result = new BufferedImage(
+                imageWidth, imageHeight, BufferedImage.TYPE_INT_RGB
+            );
+            this.fill(
+                ((DataBufferInt) result.getRaster().getDataBuffer()).getData()
+            );
+        } else {
+            result = this.producer.getBackground(imageWidth, imageHeight);
+        }
+        return result;
+    }
+
+    @Override
+    public BufferedImage addBackground(final BufferedImage image) {
+        final BufferedImage result = this.getBackground(
+            image.getWidth(), image.getHeight()
+        );
+        final Graphics2D graphics = result.createGraphics();
+        try {
+            graphics.drawImage(image, 0, 0, null);
+        } finally {
+            graphics.dispose();
+        }
+        return result;
+    }
+
+    /**
+     * Regenerate all tiles one by one.
+     *
+     * @since 0.1
+     */
+    public void refresh() {
+        for (int i = 0; i < this.tiles.length(); i++) {
+            this.tiles.set(i, this.generate());
+        }
+    }
+
+    @Override
+    public void close() {
+        this.refresher.shutdownNow();
+    }
+
+    private int[] generate() {
+        final int[] result = this.producer
+            .getBackground(this.tileWidth, this.tileHeight)
+            .getRGB(
+                0, 0, this.tileWidth, this.tileHeight, null, 0, this.tileWidth
+            );
+        for (int i = 0; i < result.length; i++) {
+            result[i] &= RGB;
+        }
+        return result;
+    }
+
+    private void refreshSafely() {
+        try {
+            this.refresh();
+        } catch (final RuntimeException ex) {
+            log.error("Captcha background refresh failed.", ex);
+        }
+    }
+}
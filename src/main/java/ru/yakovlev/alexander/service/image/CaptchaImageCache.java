@@ -0,0 +1,128 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.service.image;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import lombok.AllArgsConstructor;
+
+/**
+ * Images of created captcha by captcha id.
+ * Image is stored no longer than the captcha timeout,
+ * expired images are purged in the background.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+public class CaptchaImageCache implements AutoCloseable {
+    private final Map<Long, Entry> images = new ConcurrentHashMap<>();
+    private final long ttlInNanos;
+    private final ScheduledExecutorService cleaner;
+
+    /**
+     * Primary constructor. Starts background purge of expired images.
+     *
+     * @param timeoutInSeconds captcha timeout in seconds.
+     * @since 0.1
+     */
+    public CaptchaImageCache(final int timeoutInSeconds) {
+        if (timeoutInSeconds <= 0) {
+            throw new IllegalArgumentException(
+                "Timeout must be greater than zero."
+            );
+        }
+        this.ttlInNanos = TimeUnit.SECONDS.toNanos(timeoutInSeconds);
+        this.cleaner = Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+                final Thread thread = new Thread(
+                    runnable, "captcha-image-cache-cleaner"
+                );
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+        this.cleaner.scheduleWithFixedDelay(
+            this::purge, timeoutInSeconds, timeoutInSeconds, TimeUnit.SECONDS
+        );
+    }
+
+    /**
+     * Store image of the captcha.
+     *
+     * @param captchaId captcha id.
+     * @param image     encoded image.
+     * @since 0.1
+     */
+    public void put(final Long captchaId, final EncodedImage image) {
+        this.images.put(captchaId, new Entry(image, System.nanoTime()));
+    }
+
+    /**
+     * Return image of the captcha if it is stored and not expired.
+     *
+     * @param captchaId captcha id.
+     * @return optional of encoded image.
+     * @since 0.1
+     */
+    public Optional<EncodedImage> image(final Long captchaId) {
+        final long now = System.nanoTime();
+        return Optional
+            .ofNullable(this.images.get(captchaId))
+            .filter(entry -> !entry.expired(now, this.ttlInNanos))
+            .map(entry -> entry.image);
+    }
+
+    /**
+     * Remove all expired images.
+     *
+     * @since 0.1
+     */
+    public void purge() {
+        final long now = System.nanoTime();
+        this.images
+            .values()
+            .removeIf(entry -> entry.expired(now, this.ttlInNanos));
+    }
+
+    @Override
+    public void close() {
+        this.cleaner.shutdownNow();
+    }
+
+    @AllArgsConstructor
+    private static final class Entry {
+        private final EncodedImage image;
+        private final long created;
+
+        boolean expired(final long now, final long ttl) {
+            return now - this.created > ttl;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.service.image;
+
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.yakovlev.alexander.service.RandomStringStream;
+import ru.yakovlev.alexander.service.StageMetrics;
+
+/**
+ * Bounded pool of pre-rendered captcha.
+ * Background threads keep the pool filled, so the image rendering
+ * is moved out of the request thread. If the pool is empty,
+ * captcha is rendered in the calling thread.
+ * Answer generation is timed as stage {@code answer}, background
+ * generation of answers at once as {@code answer.batch}.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+@Slf4j
+public class CaptchaImagePool implements AutoCloseable {
+
+    /**
+     * Count of answers generated at once by the background thread.
+     */
+    private static final int ANSWERS_BATCH = 16;
+    private final BlockingQueue<RenderedCaptcha> queue;
+    private final RandomStringStream answers;
+    private final CaptchaRenderer renderer;
+    private final StageMetrics metrics;
+    private final ExecutorService executor;
+
+    /**
+     * Constructor of the pool without metrics. Starts background refill.
+     *
+     * @param size     max count of pre-rendered captcha.
+     * @param threads  count of background render threads.
+     * @param answers  stream of captcha answers.
+     * @param renderer captcha renderer.
+     * @since 0.1
+     */
+    public CaptchaImagePool(
+        final int size, final int threads,
+        final RandomStringStream answers, final CaptchaRenderer renderer
+    ) {
+        this(size, threads, answers, renderer, StageMetrics.disabled());
+    }
+
+    /**
+     * Primary constructor. Starts background refill.
+     *
+     * @param size     max count of pre-rendered captcha.
+     * @param threads  count of background render threads.
+     * @param answers  stream of captcha answers.
+     * @param renderer captcha renderer.
+     * @param metrics  stage metrics.
+     * @since 0.1
+     */
+    public CaptchaImagePool(
+        final int size, final int threads,
+        final RandomStringStream answers, final CaptchaRenderer renderer,
+        final StageMetrics metrics
+    ) {
+        if (size <= 0) {
+            throw new IllegalArgumentException(
+                "Pool size must be greater than zero."
+            );
+        }
+        if (threads <= 0) {
+            throw new IllegalArgumentException(
+                "Count of render threads must be greater than zero."
+            );
+        }
+        this.queue = new ArrayBlockingQueue<>(size);
+        this.answers = answers;
+        this.renderer = renderer;
+        this.metrics = metrics;
+        final AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(
+            threads,
+            runnable -> {
+                final Thread thread = new Thread(
+                    runnable,
+                    String.format(
+                        "captcha-renderer-%d", counter.incrementAndGet()
+                    )
+                );
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+        for (int i = 0; i < threads; i++) {
+            this.executor.execute(this::refill);
+        }
+    }
+
+    /**
+     * Take pre-rendered captcha from the pool.
+     * If the pool is empty, then captcha will be rendered in this thread.
+     *
+     * @return rendered captcha.
+     * @since 0.1
+     */
+    public RenderedCaptcha take() {
+        final RenderedCaptcha pooled = this.queue.poll();
+        final RenderedCaptcha result;
+        if (Objects.nonNull(pooled)) {
+            result = pooled;
+        } else {
+            result = this.renderNew();
+        }
+        return result;
+    }
+
+    /**
+     * Count of pre-rendered captcha in the pool.
+     *
+     * @return count of captcha.
+     * @since 0.1
+     */
+    public int size() {
+        return this.queue.size();
+    }
+
+    @Override
+    public void close() {
+        this.executor.shutdownNow();
+    }
+
+    private RenderedCaptcha renderNew() {
+        return this.renderer.render(
+            this.metrics.time("answer", () -> this.answers.next())
+        );
+    }
+
+    private void refill() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                final String[] batch = this.metrics.time(
+                    "answer.batch", () -> this.answers.next(ANSWERS_BATCH)
+                );
+                for (final String answer : batch) {
+                    this.queue.put(this.renderer.render(answer));
+                }
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (final RuntimeException ex) {
+                log.error("Captcha rendering failed.", ex);
+            }
+        }
+    }
+}
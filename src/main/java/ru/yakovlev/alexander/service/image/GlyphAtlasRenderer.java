@@ -0,0 +1,379 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.service.image;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+import lombok.AllArgsConstructor;
+import ru.yakovlev.alexander.service.StageMetrics;
+
+/**
+ * Captcha renderer with pre-rasterized glyphs.
+ * Every character of the alphabet is rasterized once into an atlas
+ * of alpha masks in several fonts and rotations. The image is composed
+ * by blending random variants of the answer characters over a cached
+ * background straight into the pixel buffer with random offsets
+ * and a sine warp, then a noise curve and a border are drawn,
+ * so Java2D is used only to build the atlas and backgrounds.
+ * Answer with characters out of the alphabet is drawn by the fallback.
+ * Drawing and encoding are timed as stages {@code draw} and {@code encode}.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+public class GlyphAtlasRenderer implements CaptchaRenderer {
+    private static final String[] FONTS = {
+        Font.SANS_SERIF, Font.SERIF, Font.MONOSPACED,
+    };
+
+    /**
+     * Count of rotations of each glyph.
+     */
+    private static final int ROTATIONS = 9;
+
+    /**
+     * Max rotation of a glyph in radians.
+     */
+    private static final double MAX_ANGLE = 0.4;
+
+    /**
+     * Font size relative to the image height.
+     */
+    private static final float FONT_SCALE = 0.8F;
+
+    /**
+     * Max warp amplitude relative to the image height.
+     */
+    private static final double WARP = 0.1;
+
+    /**
+     * Max amplitude of the noise curve relative to the image height.
+     */
+    private static final double NOISE = 0.25;
+    private static final int NOISE_WIDTH = 2;
+    private static final int MAX_GAP = 2;
+    private static final int OPAQUE = 0xFF;
+    private static final int FOREGROUND = 0x000000;
+    private final int width;
+    private final int height;
+    private final BackgroundTiles background;
+    private final ImageEncoder encoder;
+    private final CaptchaRenderer fallback;
+    private final StageMetrics metrics;
+
+    /**
+     * Variants of glyphs by character, null if the character
+     * is not in the alphabet.
+     */
+    private final Glyph[][] glyphs;
+
+    /**
+     * Primary constructor. Builds the glyph atlas.
+     *
+     * @param width      image width.
+     * @param height     image height.
+     * @param alphabet   characters of answers.
+     * @param background backgrounds of the image size.
+     * @param encoder    image encoder.
+     * @param fallback   renderer of answers out of the alphabet.
+     * @param metrics    stage metrics.
+     * @since 0.1
+     */
+    public GlyphAtlasRenderer(
+        final int width, final int height, final char[] alphabet,
+        final BackgroundTiles background, final ImageEncoder encoder,
+        final CaptchaRenderer fallback, final StageMetrics metrics
+    ) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException(
+                "Image size must be greater than zero."
+            );
+        }
+        if (alphabet.length == 0) {
+            throw new IllegalArgumentException("Alphabet must not be empty.");
+        }
+        this.width = width;
+        this.height = height;
+        this.background = background;
+        this.encoder = encoder;
+        this.fallback = fallback;
+        this.metrics = metrics;
+        char last = 0;
+        for (final char symbol : alphabet) {
+            last = (char) Math.max(last, symbol);
+        }
+        this.glyphs = new Glyph[last + 1][];
+        final int size = Math.max(1, Math.round(height * FONT_SCALE));
+        for (final char symbol : alphabet) {
+            this.glyphs[symbol] = GlyphAtlasRenderer.variants(symbol, size);
+        }
+    }
+
+    @Override
+    public RenderedCaptcha render(final String answer) {
+        final RenderedCaptcha result;
+        if (this.drawable(answer)) {
+            final BufferedImage image = this.metrics.time(
+                "draw", () -> this.draw(answer)
+            );
+            final byte[] encoded = this.metrics.time(
+                "encode", () -> this.encoder.encode(image)
+            );
+            result = new RenderedCaptcha(answer, new EncodedImage(encoded));
+        } else {
+            result = this.fallback.render(answer);
+        }
+        return result;
+    }
+
+    private boolean drawable(final String answer) {
+        boolean result = true;
+        for (int i = 0; i < answer.length() && result; i++) {
+            final char symbol = answer.charAt(i);
+            result = symbol < this.glyphs.length
+                && Objects.nonNull(this.glyphs[symbol]);
+        }
+        return result;
+    }
+
+    private BufferedImage draw(final String answer) {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final BufferedImage image = new BufferedImage(
+            this.width, this.height, BufferedImage.TYPE_INT_RGB
+        );
+        final int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer())
+            .getData();
+        this.background.fill(pixels);
+        final Glyph[] chosen = new Glyph[answer.length()];
+        int total = 0;
+        for (int i = 0; i < chosen.length; i++) {
+            final Glyph[] variants = this.glyphs[answer.charAt(i)];
+            chosen[i] = variants[random.nextInt(variants.length)];
+            total += chosen[i].width;
+        }
+        final int gap = Math.min(
+            MAX_GAP, (this.width - total) / (chosen.length + 1)
+        );
+        final int slack = Math.max(
+            0, this.width - total - gap * (chosen.length - 1)
+        );
+        final int[] warp = this.curve(random, WARP, 0);
+        int left = slack / 4 + random.nextInt(slack / 2 + 1);
+        for (final Glyph glyph : chosen) {
+            final int space = Math.max(0, this.height - glyph.height);
+            final int top = space / 4 + random.nextInt(space / 2 + 1);
+            this.blend(pixels, glyph, left, top, warp);
+            left += glyph.width + gap;
+        }
+        this.noise(pixels, random);
+        this.border(pixels);
+        return image;
+    }
+
+    private void blend(
+        final int[] pixels, final Glyph glyph,
+        final int left, final int top, final int[] warp
+    ) {
+        for (int gy = 0; gy < glyph.height; gy++) {
+            for (int gx = 0; gx < glyph.width; gx++) {
+                final int alpha = glyph.alpha[gy * glyph.width + gx] & OPAQUE;
+                final int x = left + gx;
+                if (alpha != 0 && x >= 0 && x < this.width) {
+                    final int y = top + gy + warp[x];
+                    if (y >= 0 && y < this.height) {
+                        final int index = y * this.width + x;
+                        pixels[index] = GlyphAtlasRenderer.mix(
+                            pixels[index], FOREGROUND, alpha
+                        );
+                    }
+                }
+            }
+        }
+    }
+
+    private void noise(final int[] pixels, final ThreadLocalRandom random) {
+        final int[] curve = this.curve(
+            random, NOISE,
+            this.height / 4 + random.nextInt(this.height / 2 + 1)
+        );
+        int previous = curve[0];
+        for (int x = 0; x < this.width; x++) {
+            final int from = Math.max(0, Math.min(previous, curve[x]));
+            final int to = Math.min(
+                this.height - 1,
+                Math.max(previous, curve[x]) + NOISE_WIDTH - 1
+            );
+            for (int y = from; y <= to; y++) {
+                pixels[y * this.width + x] = FOREGROUND;
+            }
+            previous = curve[x];
+        }
+    }
+
+    private void border(final int[] pixels) {
+        final int bottom = (this.height - 1) * this.width;
+        Arrays.fill(pixels, 0, this.width, FOREGROUND);
+        Arrays.fill(pixels, bottom, bottom + this.width, FOREGROUND);
+        for (int y = 0; y < this.height; y++) {
+            pixels[y * this.width] = FOREGROUND;
+            pixels[y * this.width + this.width - 1] = FOREGROUND;
+        }
+    }
+
+    /**
+     * Random sine curve over the image width.
+     *
+     * @param random    random.
+     * @param amplitude max amplitude relative to the image height.
+     * @param center    vertical position of the curve.
+     * @return vertical position by x.
+     */
+    private int[] curve(
+        final ThreadLocalRandom random, final double amplitude, final int center
+    ) {
+        final double scale = this.height * amplitude
+            * random.nextDouble(0.5, 1.0);
+        final double period = this.width * random.nextDouble(0.5, 1.5);
+        final double phase = random.nextDouble(2.0 * Math.PI);
+        final int[] result = new int[this.width];
+        for (int x = 0; x < this.width; x++) {
+            result[x] = center + (int) Math.round(
+                scale * Math.sin(2.0 * Math.PI * x / period + phase)
+            );
+        }
+        return result;
+    }
+
+    private static int mix(final int under, final int over, final int alpha) {
+        final int inverse = OPAQUE - alpha;
+        int result = 0;
+        for (int shift = 0; shift <= 16; shift += 8) {
+            final int channel = ((under >> shift & OPAQUE) * inverse
+                + (over >> shift & OPAQUE) * alpha) / OPAQUE;
+            result |= channel << shift;
+        }
+        return result;
+    }
+
+    private static Glyph[] variants(final char symbol, final int size) {
+        final Glyph[] result = new Glyph[FONTS.length * ROTATIONS];
+        for (int font = 0; font < FONTS.length; font++) {
+            for (int rotation = 0; rotation < ROTATIONS; rotation++) {
+                result[font * ROTATIONS + rotation] = Glyph.rasterize(
+                    symbol, new Font(FONTS[font], Font.BOLD, size),
+                    MAX_ANGLE * (2.0 * rotation / (ROTATIONS - 1) - 1.0)
+                );
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Alpha mask of the rotated character cropped to its bounds.
+     */
+    @AllArgsConstructor
+    private static final class Glyph {
+        private final int width;
+        private final int height;
+        private final byte[] alpha;
+
+        static Glyph rasterize(
+            final char symbol, final Font font, final double angle
+        ) {
+            final int cell = font.getSize() * 2;
+            final BufferedImage image = new BufferedImage(
+                cell, cell, BufferedImage.TYPE_BYTE_GRAY
+            );
+            final Graphics2D graphics = image.createGraphics();
+            try {
+                graphics.setRenderingHint(
+                    RenderingHints.KEY_ANTIALIASING,
+                    RenderingHints.VALUE_ANTIALIAS_ON
+                );
+                graphics.setRenderingHint(
+                    RenderingHints.KEY_TEXT_ANTIALIASING,
+                    RenderingHints.VALUE_TEXT_ANTIALIAS_ON
+                );
+                graphics.setColor(Color.WHITE);
+                graphics.setFont(font);
+                final FontMetrics metrics = graphics.getFontMetrics();
+                graphics.rotate(angle, cell / 2.0, cell / 2.0);
+                graphics.drawString(
+                    String.valueOf(symbol),
+                    (cell - metrics.charWidth(symbol)) / 2,
+                    (cell + metrics.getAscent() - metrics.getDescent()) / 2
+                );
+            } finally {
+                graphics.dispose();
+            }
+            return Glyph.crop(
+                ((DataBufferByte) image.getRaster().getDataBuffer()).getData(),
+                cell
+            );
+        }
+
+        private static Glyph crop(final byte[] pixels, final int cell) {
+            int left = cell;
+            int right = -1;
+            int top = cell;
+            int bottom = -1;
+            for (int y = 0; y < cell; y++) {
+                for (int x = 0; x < cell; x++) {
+                    if (pixels[y * cell + x] != 0) {
+                        left = Math.min(left, x);
+                        right = Math.max(right, x);
+                        top = Math.min(top, y);
+                        bottom = Math.max(bottom, y);
+                    }
+                }
+            }
+            final Glyph result;
+            if (right < 0) {
+                result = new Glyph(1, 1, new byte[1]);
+            } else {
+                final int width = right - left + 1;
+                final int height = bottom - top + 1;
+                final byte[] alpha = new byte[width * height];
+                for (int y = 0; y < height; y++) {
+                    System.arraycopy(
+                        pixels, (top + y) * cell + left, alpha, y * width, width
+                    );
+                }
+                result = new Glyph(width, height, alpha);
+            }
+            return result;
+        }
+    }
+}
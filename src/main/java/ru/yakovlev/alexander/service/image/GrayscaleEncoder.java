@@ -0,0 +1,174 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.service.image;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.IndexColorModel;
+
+/**
+ * Image encoder of the grayscale image.
+ * The image is converted to 8 bit grayscale or to the indexed image
+ * with a palette of evenly spaced gray levels of 1, 2 or 4 bits per pixel,
+ * then it is encoded by the underlying encoder. Smaller samples make
+ * the encoded captcha several times smaller than the truecolor one.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+public class GrayscaleEncoder implements ImageEncoder {
+    private static final int GRAY_BITS = 8;
+    private static final int MAX_LEVEL = 0xFF;
+    private static final int RED_WEIGHT = 77;
+    private static final int GREEN_WEIGHT = 150;
+    private static final int BLUE_WEIGHT = 29;
+    private final ImageEncoder encoder;
+    private final int bits;
+
+    /**
+     * Palette of the indexed image, null for 8 bit grayscale.
+     */
+    private final IndexColorModel palette;
+
+    /**
+     * Primary constructor.
+     *
+     * @param encoder encoder of the converted image.
+     * @param bits    bits per pixel: 8 for grayscale, 1, 2 or 4 for indexed.
+     * @since 0.1
+     */
+    public GrayscaleEncoder(final ImageEncoder encoder, final int bits) {
+        if (bits != 1 && bits != 2 && bits != 4 && bits != GRAY_BITS) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Bits per pixel must be 1, 2, 4 or 8. Your: %d", bits
+                )
+            );
+        }
+        this.encoder = encoder;
+        this.bits = bits;
+        if (bits == GRAY_BITS) {
+            this.palette = null;
+        } else {
+            this.palette = GrayscaleEncoder.grays(bits);
+        }
+    }
+
+    @Override
+    public byte[] encode(final BufferedImage image) {
+        final BufferedImage converted;
+        if (this.bits == GRAY_BITS) {
+            converted = this.gray(image);
+        } else {
+            converted = this.indexed(image);
+        }
+        return this.encoder.encode(converted);
+    }
+
+    private BufferedImage gray(final BufferedImage image) {
+        final int width = image.getWidth();
+        final int[] rgb = GrayscaleEncoder.rgb(image);
+        final BufferedImage result = new BufferedImage(
+            width, image.getHeight(), BufferedImage.TYPE_BYTE_GRAY
+        );
+        final byte[] samples = ((DataBufferByte) result.getRaster()
+            .getDataBuffer()).getData();
+        for (int i = 0; i < rgb.length; i++) {
+            samples[i] = (byte) GrayscaleEncoder.luminance(rgb[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Packed indexed image, pixels of a row are stored from
+     * the highest bits of a byte, each row starts with a new byte.
+     *
+     * @param image image.
+     * @return indexed image.
+     */
+    private BufferedImage indexed(final BufferedImage image) {
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        final int[] rgb = GrayscaleEncoder.rgb(image);
+        final BufferedImage result = new BufferedImage(
+            width, height, BufferedImage.TYPE_BYTE_BINARY, this.palette
+        );
+        final byte[] samples = ((DataBufferByte) result.getRaster()
+            .getDataBuffer()).getData();
+        final int perByte = Byte.SIZE / this.bits;
+        final int stride = (width + perByte - 1) / perByte;
+        final int shift = GRAY_BITS - this.bits;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                final int index = GrayscaleEncoder
+                    .luminance(rgb[y * width + x]) >> shift;
+                final int offset = Byte.SIZE
+                    - (x % perByte + 1) * this.bits;
+                samples[y * stride + x / perByte] |= (byte) (index << offset);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Pixels of the image in the default RGB color model.
+     * Pixels of the int RGB image are returned without copying.
+     *
+     * @param image image.
+     * @return pixels.
+     */
+    private static int[] rgb(final BufferedImage image) {
+        final int[] result;
+        if ((image.getType() == BufferedImage.TYPE_INT_RGB
+            || image.getType() == BufferedImage.TYPE_INT_ARGB)
+            && image.getRaster().getDataBuffer().getSize()
+            == image.getWidth() * image.getHeight()) {
+            result = ((DataBufferInt) image.getRaster().getDataBuffer())
+                .getData();
+        } else {
+            result = image.getRGB(
+                0, 0, image.getWidth(), image.getHeight(),
+                null, 0, image.getWidth()
+            );
+        }
+        return result;
+    }
+
+    private static int luminance(final int rgb) {
+        return ((rgb >> 16 & MAX_LEVEL) * RED_WEIGHT
+            + (rgb >> 8 & MAX_LEVEL) * GREEN_WEIGHT
+            + (rgb & MAX_LEVEL) * BLUE_WEIGHT) >> GRAY_BITS;
+    }
+
+    private static IndexColorModel grays(final int bits) {
+        final int size = 1 << bits;
+        final byte[] levels = new byte[size];
+        for (int i = 0; i < size; i++) {
+            levels[i] = (byte) (i * MAX_LEVEL / (size - 1));
+        }
+        return new IndexColorModel(bits, size, levels, levels, levels);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.service.image;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * PNG image encoder with tunable compression level.
+ * Each thread reuses its own image writer.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+public class PngImageEncoder implements ImageEncoder {
+    private static final int MAX_COMPRESSION_LEVEL = 9;
+
+    /**
+     * Initial size of the output buffer, enough for a typical captcha.
+     */
+    private static final int BUFFER_SIZE = 4096;
+
+    private final ThreadLocal<Writer> writers;
+
+    /**
+     * Primary constructor.
+     *
+     * @param compressionLevel deflate compression level from 0 to 9.
+     * @since 0.1
+     */
+    public PngImageEncoder(final int compressionLevel) {
+        if (compressionLevel < 0 || compressionLevel > MAX_COMPRESSION_LEVEL) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Compression level must be from 0 to %d. Your: %d",
+                    MAX_COMPRESSION_LEVEL, compressionLevel
+                )
+            );
+        }
+        final float quality = 1.0F
+            - (float) compressionLevel / MAX_COMPRESSION_LEVEL;
+        this.writers = ThreadLocal.withInitial(() -> new Writer(quality));
+    }
+
+    @Override
+    public byte[] encode(final BufferedImage image) {
+        return this.writers.get().write(image);
+    }
+
+    /**
+     * PNG image writer with write parameters.
+     */
+    private static final class Writer {
+        private final ImageWriter writer;
+        private final ImageWriteParam param;
+
+        Writer(final float quality) {
+            this.writer = ImageIO
+                .getImageWritersByFormatName("png")
+                .next();
+            this.param = this.writer.getDefaultWriteParam();
+            if (this.param.canWriteCompressed()) {
+                this.param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                this.param.setCompressionQuality(quality);
+            }
+        }
+
+        byte[] write(final BufferedImage image) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(
+                BUFFER_SIZE
+            );
+            try (ImageOutputStream stream
+                     = new MemoryCacheImageOutputStream(out)) {
+                this.writer.setOutput(stream);
+                this.writer.write(
+                    null, new IIOImage(image, null, null), this.param
+                );
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            } finally {
+                this.writer.setOutput(null);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.service.image;
+
+import java.awt.image.BufferedImage;
+
+import lombok.AllArgsConstructor;
+import nl.captcha.Captcha;
+import nl.captcha.backgrounds.BackgroundProducer;
+import nl.captcha.backgrounds.SquigglesBackgroundProducer;
+import nl.captcha.noise.CurvedLineNoiseProducer;
+import ru.yakovlev.alexander.service.StageMetrics;
+
+/**
+ * Captcha renderer based on SimpleCaptcha.
+ * Draws the captcha answer with Java2D and encodes it.
+ * Drawing and encoding are timed as stages {@code draw} and {@code encode}.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+@AllArgsConstructor
+public class SimpleCaptchaRenderer implements CaptchaRenderer {
+    private final int width;
+    private final int height;
+    private final BackgroundProducer background;
+    private final ImageEncoder encoder;
+    private final StageMetrics metrics;
+
+    /**
+     * Constructor of the renderer without metrics,
+     * backgrounds are generated for every image.
+     *
+     * @param width   image width.
+     * @param height  image height.
+     * @param encoder image encoder.
+     * @since 0.1
+     */
+    public SimpleCaptchaRenderer(
+        final int width, final int height, final ImageEncoder encoder
+    ) {
+        this(
+            width, height, new SquigglesBackgroundProducer(),
+            encoder, StageMetrics.disabled()
+        );
+    }
+
+    @Override
+    public RenderedCaptcha render(final String answer) {
+        final BufferedImage image = this.metrics.time(
+            "draw",
+            () -> new Captcha
+                .Builder(this.width, this.height)
+                .addBackground(this.background)
+                .addText(() -> answer)
+                .addNoise(new CurvedLineNoiseProducer())
+                .addBorder()
+                .build()
+                .getImage()
+        );
+        final byte[] encoded = this.metrics.time(
+            "encode", () -> this.encoder.encode(image)
+        );
+        return new RenderedCaptcha(answer, new EncodedImage(encoded));
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.service.signed;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Payload of the signed captcha handle: owner, creation time, nonce
+ * and keyed hash of the answer. The answer itself is not stored,
+ * so the handle can be given to the client.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+@Getter
+@AllArgsConstructor
+public class CaptchaHandle {
+
+    /**
+     * Length of the answer hash in bytes.
+     */
+    public static final int ANSWER_LENGTH = 16;
+    private static final byte TYPE = 'C';
+    private static final int LENGTH = 1 + 16 + 8 + 16 + ANSWER_LENGTH;
+    private final UUID owner;
+
+    /**
+     * Creation time in milliseconds since the epoch.
+     */
+    private final long created;
+    private final UUID nonce;
+    private final byte[] answer;
+
+    /**
+     * Parse payload of the handle.
+     *
+     * @param payload verified payload.
+     * @return optional of captcha handle, empty if it is not a captcha.
+     * @since 0.1
+     */
+    public static Optional<CaptchaHandle> of(final ByteBuffer payload) {
+        Optional<CaptchaHandle> result = Optional.empty();
+        if (payload.remaining() == LENGTH && payload.get() == TYPE) {
+            final UUID owner = new UUID(payload.getLong(), payload.getLong());
+            final long created = payload.getLong();
+            final UUID nonce = new UUID(payload.getLong(), payload.getLong());
+            final byte[] answer = new byte[ANSWER_LENGTH];
+            payload.get(answer);
+            result = Optional.of(
+                new CaptchaHandle(owner, created, nonce, answer)
+            );
+        }
+        return result;
+    }
+
+    /**
+     * Return payload of this handle.
+     *
+     * @return payload.
+     * @since 0.1
+     */
+    public byte[] payload() {
+        return ByteBuffer
+            .allocate(LENGTH)
+            .put(TYPE)
+            .putLong(this.owner.getMostSignificantBits())
+            .putLong(this.owner.getLeastSignificantBits())
+            .putLong(this.created)
+            .putLong(this.nonce.getMostSignificantBits())
+            .putLong(this.nonce.getLeastSignificantBits())
+            .put(this.answer)
+            .array();
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.service.signed;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * HMAC-SHA256 signer of self-contained handles.
+ * Signed handle is URL-safe Base64 of the payload followed by its MAC,
+ * so any node with the same key can verify it without shared storage.
+ * Sealed handle is URL-safe Base64 of the IV and the AES-GCM ciphertext
+ * of the payload, the client can neither read nor change it.
+ * The sealing key is derived from the signing key.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+public class HandleSigner {
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_KEY_LENGTH = 32;
+    private static final int MAC_LENGTH = 32;
+    private static final String CIPHER = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH = 16;
+    private static final byte[] SEAL_DOMAIN = {'S'};
+    private static final Base64.Encoder ENCODER = Base64
+        .getUrlEncoder()
+        .withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    /**
+     * Mac instances are not thread safe, so each thread has its own.
+     */
+    private final ThreadLocal<Mac> macs;
+
+    /**
+     * Cipher instances are not thread safe, so each thread has its own.
+     */
+    private final ThreadLocal<Cipher> ciphers;
+    private final SecretKeySpec sealing;
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Primary constructor.
+     *
+     * @param key signing key, at least 32 bytes long.
+     * @since 0.1
+     */
+    public HandleSigner(final byte[] key) {
+        if (key.length < MIN_KEY_LENGTH) {
+            throw new IllegalArgumentException(
+                "Signing key must be at least 32 bytes long."
+            );
+        }
+        final SecretKeySpec spec = new SecretKeySpec(key, ALGORITHM);
+        // Fails fast if the algorithms are not available.
+        final byte[] derived = HandleSigner.newMac(spec).doFinal(SEAL_DOMAIN);
+        HandleSigner.newCipher();
+        this.macs = ThreadLocal.withInitial(() -> HandleSigner.newMac(spec));
+        this.sealing = new SecretKeySpec(derived, "AES");
+        this.ciphers = ThreadLocal.withInitial(HandleSigner::newCipher);
+    }
+
+    /**
+     * Sign the payload.
+     *
+     * @param payload payload.
+     * @return signed handle.
+     * @since 0.1
+     */
+    public String sign(final byte[] payload) {
+        final byte[] signed = Arrays.copyOf(payload, payload.length + MAC_LENGTH);
+        System.arraycopy(
+            this.mac(payload), 0, signed, payload.length, MAC_LENGTH
+        );
+        return ENCODER.encodeToString(signed);
+    }
+
+    /**
+     * Return payload of the handle if its signature is valid.
+     * Signatures are compared in constant time.
+     *
+     * @param handle signed handle.
+     * @return optional of payload.
+     * @since 0.1
+     */
+    public Optional<ByteBuffer> verify(final String handle) {
+        final byte[] signed = HandleSigner.decode(handle);
+        Optional<ByteBuffer> result = Optional.empty();
+        if (signed.length > MAC_LENGTH) {
+            final int length = signed.length - MAC_LENGTH;
+            final byte[] payload = Arrays.copyOf(signed, length);
+            if (MessageDigest.isEqual(
+                this.mac(payload),
+                Arrays.copyOfRange(signed, length, signed.length)
+            )) {
+                result = Optional.of(ByteBuffer.wrap(payload));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Encrypt the payload.
+     *
+     * @param payload payload.
+     * @return sealed handle.
+     * @since 0.1
+     */
+    public String seal(final byte[] payload) {
+        final byte[] sealed = new byte[IV_LENGTH + payload.length + TAG_LENGTH];
+        final byte[] iv = new byte[IV_LENGTH];
+        this.random.nextBytes(iv);
+        System.arraycopy(iv, 0, sealed, 0, IV_LENGTH);
+        try {
+            final Cipher cipher = this.ciphers.get();
+            cipher.init(
+                Cipher.ENCRYPT_MODE, this.sealing,
+                new GCMParameterSpec(TAG_LENGTH * Byte.SIZE, iv)
+            );
+            cipher.doFinal(payload, 0, payload.length, sealed, IV_LENGTH);
+        } catch (final GeneralSecurityException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return ENCODER.encodeToString(sealed);
+    }
+
+    /**
+     * Return payload of the sealed handle if it is authentic.
+     *
+     * @param handle sealed handle.
+     * @return optional of payload.
+     * @since 0.1
+     */
+    public Optional<ByteBuffer> open(final String handle) {
+        final byte[] sealed = HandleSigner.decode(handle);
+        Optional<ByteBuffer> result = Optional.empty();
+        if (sealed.length > IV_LENGTH + TAG_LENGTH) {
+            try {
+                final Cipher cipher = this.ciphers.get();
+                cipher.init(
+                    Cipher.DECRYPT_MODE, this.sealing,
+                    new GCMParameterSpec(
+                        TAG_LENGTH * Byte.SIZE, sealed, 0, IV_LENGTH
+                    )
+                );
+                result = Optional.of(
+                    ByteBuffer.wrap(
+                        cipher.doFinal(
+                            sealed, IV_LENGTH, sealed.length - IV_LENGTH
+                        )
+                    )
+                );
+            } catch (final GeneralSecurityException ex) {
+                // Forged or not sealed handle, the result is empty.
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Compute MAC of the concatenated parts.
+     *
+     * @param parts data to authenticate.
+     * @return MAC, 32 bytes.
+     * @since 0.1
+     */
+    public byte[] mac(final byte[]... parts) {
+        final Mac mac = this.macs.get();
+        for (final byte[] part : parts) {
+            mac.update(part);
+        }
+        return mac.doFinal();
+    }
+
+    private static byte[] decode(final String handle) {
+        byte[] result = new byte[0];
+        if (Objects.nonNull(handle)) {
+            try {
+                result = DECODER.decode(handle);
+            } catch (final IllegalArgumentException ex) {
+                // Not a handle, the result is empty.
+            }
+        }
+        return result;
+    }
+
+    private static Cipher newCipher() {
+        try {
+            return Cipher.getInstance(CIPHER);
+        } catch (final GeneralSecurityException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static Mac newMac(final SecretKeySpec spec) {
+        try {
+            final Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(spec);
+            return mac;
+        } catch (final GeneralSecurityException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.service.signed;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Used nonces of the last window.
+ * Nonces are kept in two generations rotated every window,
+ * so a nonce is remembered at least for one window after its use
+ * and memory is bounded by the count of nonces used in two windows.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+public class ReplayGuard implements AutoCloseable {
+
+    /**
+     * Rotation takes the write lock, so a nonce can not be checked
+     * in the old generation and added to the new one concurrently.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ScheduledExecutorService rotator;
+    private Set<UUID> current = ConcurrentHashMap.newKeySet();
+    private Set<UUID> previous = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Primary constructor. Starts background rotation.
+     *
+     * @param windowInSeconds how long used nonces are remembered.
+     * @since 0.1
+     */
+    public ReplayGuard(final int windowInSeconds) {
+        if (windowInSeconds <= 0) {
+            throw new IllegalArgumentException(
+                "Window must be greater than zero."
+            );
+        }
+        this.rotator = Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+                final Thread thread = new Thread(
+                    runnable, "replay-guard-rotator"
+                );
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+        this.rotator.scheduleWithFixedDelay(
+            this::rotate, windowInSeconds, windowInSeconds, TimeUnit.SECONDS
+        );
+    }
+
+    /**
+     * Mark nonce as used.
+     *
+     * @param nonce nonce.
+     * @return true if the nonce has not been used yet.
+     * @since 0.1
+     */
+    public boolean use(final UUID nonce) {
+        this.lock.readLock().lock();
+        try {
+            return !this.previous.contains(nonce) && this.current.add(nonce);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Check whether the nonce has been used.
+     *
+     * @param nonce nonce.
+     * @return true if the nonce has been used.
+     * @since 0.1
+     */
+    public boolean used(final UUID nonce) {
+        this.lock.readLock().lock();
+        try {
+            return this.current.contains(nonce)
+                || this.previous.contains(nonce);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Forget nonces of the previous window.
+     *
+     * @since 0.1
+     */
+    public void rotate() {
+        this.lock.writeLock().lock();
+        try {
+            this.previous = this.current;
+            this.current = ConcurrentHashMap.newKeySet();
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        this.rotator.shutdownNow();
+    }
+}
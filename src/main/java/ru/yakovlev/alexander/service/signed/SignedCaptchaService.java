@@ -0,0 +1,284 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.service.signed;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import ru.yakovlev.alexander.configuration.AppProperties;
+import ru.yakovlev.alexander.model.Failure;
+import ru.yakovlev.alexander.model.Outcome;
+import ru.yakovlev.alexander.model.dto.CaptchaCheckResult;
+import ru.yakovlev.alexander.service.ClientService;
+import ru.yakovlev.alexander.service.RateLimiter;
+import ru.yakovlev.alexander.service.ThreadLocalSecureRandom;
+import ru.yakovlev.alexander.service.image.CaptchaImagePool;
+import ru.yakovlev.alexander.service.image.RenderedCaptcha;
+
+/**
+ * Stateless captcha service.
+ * Captcha are signed and verification tokens are sealed self-contained
+ * handles instead of database rows, only used nonces are kept in memory
+ * for the captcha timeout. Creation and solving are limited per client
+ * by the same limiters as of stored captcha.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+@Service
+@ConditionalOnProperty(name = "app.signed.enabled", havingValue = "true")
+@AllArgsConstructor
+public class SignedCaptchaService {
+    private static final byte[] ANSWER_DOMAIN = {'A'};
+    private final ClientService clientService;
+    private final CaptchaImagePool imagePool;
+    private final HandleSigner signer;
+    private final ReplayGuard replays;
+    private final ThreadLocalSecureRandom random;
+    private final RateLimiter captchaRateLimiter;
+    private final RateLimiter solveRateLimiter;
+    private final AppProperties.Captcha captchaProperties;
+
+    /**
+     * Additional constructor.
+     *
+     * @param clientService client service.
+     * @param imagePool     pool of pre-rendered captcha.
+     * @param signer        handle signer.
+     * @param replays       used nonces.
+     * @param random        secure random.
+     * @param captchaLimits per-client limiter of created captcha.
+     * @param solveLimits   per-client limiter of solve requests.
+     * @param appProperties application properties.
+     * @since 0.1
+     */
+    @Autowired
+    public SignedCaptchaService(
+        final ClientService clientService,
+        final CaptchaImagePool imagePool,
+        final HandleSigner signer,
+        final ReplayGuard replays,
+        final ThreadLocalSecureRandom random,
+        @Qualifier("captchaRateLimiter") final RateLimiter captchaLimits,
+        @Qualifier("solveRateLimiter") final RateLimiter solveLimits,
+        final AppProperties appProperties
+    ) {
+        this(
+            clientService, imagePool, signer, replays, random,
+            captchaLimits, solveLimits, appProperties.getCaptcha()
+        );
+    }
+
+    /**
+     * Creates a new captcha from pre-rendered captcha.
+     *
+     * @param clientId client UUID.
+     * @return outcome with signed handle and rendered captcha,
+     *     fails if the client exceeds its rate.
+     * @since 0.1
+     */
+    public Outcome<IssuedCaptcha> createNew(final UUID clientId) {
+        final Outcome<IssuedCaptcha> result;
+        if (this.captchaRateLimiter.tryAcquire(clientId, 1)) {
+            result = this.clientService.findById(clientId).map(
+                client -> {
+                    final RenderedCaptcha rendered = this.imagePool.take();
+                    final UUID nonce = this.nonce();
+                    final CaptchaHandle handle = new CaptchaHandle(
+                        client.getId(), Instant.now().toEpochMilli(), nonce,
+                        this.answerHash(nonce, rendered.getAnswer())
+                    );
+                    return new IssuedCaptcha(
+                        this.signer.sign(handle.payload()), rendered
+                    );
+                }
+            );
+        } else {
+            result = Outcome.failure(Failure.RATE_LIMITED);
+        }
+        return result;
+    }
+
+    /**
+     * Solve captcha. Each captcha handle can be solved only once.
+     * The answer is not checked here, its keyed hash is sealed
+     * into the token and checked on activation with the client secret key,
+     * so the token does not tell whether the answer is right.
+     *
+     * @param clientId client UUID.
+     * @param handle   signed captcha handle.
+     * @param answer   answer to captcha.
+     * @return outcome with sealed verification token,
+     *     fails if the client exceeds its rate.
+     * @since 0.1
+     */
+    public Outcome<String> solve(
+        final UUID clientId, final String handle, final String answer
+    ) {
+        final Outcome<String> result;
+        if (this.solveRateLimiter.tryAcquire(clientId, 1)) {
+            result = this.solveHandle(clientId, handle, answer);
+        } else {
+            result = Outcome.failure(Failure.RATE_LIMITED);
+        }
+        return result;
+    }
+
+    private Outcome<String> solveHandle(
+        final UUID clientId, final String handle, final String answer
+    ) {
+        return Outcome
+            .of(
+                this.signer
+                    .verify(handle)
+                    .flatMap(CaptchaHandle::of)
+                    .filter(captcha -> captcha.getOwner().equals(clientId)),
+                Failure.CAPTCHA_NOT_FOUND
+            )
+            .flatMap(this::active)
+            .map(
+                captcha -> this.signer.seal(
+                    new TokenHandle(
+                        captcha.getOwner(), captcha.getCreated(),
+                        captcha.getNonce(), this.nonce(), captcha.getAnswer(),
+                        this.answerHash(
+                            captcha.getNonce(), Objects.toString(answer, "")
+                        )
+                    ).payload()
+                )
+            );
+    }
+
+    /**
+     * Verification token activation. Token can be activated only once
+     * within the captcha timeout.
+     *
+     * @param clientId  client UUID.
+     * @param token     sealed verification token.
+     * @param secretKey client secret key.
+     * @return outcome with captcha check result.
+     * @since 0.1
+     */
+    public Outcome<CaptchaCheckResult> activate(
+        final UUID clientId, final String token, final UUID secretKey
+    ) {
+        return Outcome
+            .of(
+                this.signer
+                    .open(token)
+                    .flatMap(TokenHandle::of)
+                    .filter(handle -> handle.getOwner().equals(clientId)),
+                Failure.TOKEN_NOT_FOUND
+            )
+            .flatMap(
+                handle -> this.clientService.findById(clientId).flatMap(
+                    client -> {
+                        final Outcome<TokenHandle> result;
+                        if (client.authenticated(secretKey)) {
+                            result = Outcome.success(handle);
+                        } else {
+                            result = Outcome.failure(Failure.WRONG_SECRET_KEY);
+                        }
+                        return result;
+                    }
+                )
+            )
+            .flatMap(this::activateToken);
+    }
+
+    private Outcome<CaptchaCheckResult> activateToken(
+        final TokenHandle token
+    ) {
+        final Outcome<CaptchaCheckResult> result;
+        if (this.timeoutOver(token.getCreated())) {
+            result = Outcome.failure(Failure.TIMEOUT_OVER);
+        } else if (!this.replays.use(token.getNonce())) {
+            result = Outcome.failure(Failure.ALREADY_ACTIVATED);
+        } else if (!MessageDigest.isEqual(token.getAnswer(), token.getGiven())) {
+            result = Outcome.success(CaptchaCheckResult.WRONG_ANSWER);
+        } else {
+            result = Outcome.success(CaptchaCheckResult.SUCCESS);
+        }
+        return result;
+    }
+
+    private Outcome<CaptchaHandle> active(final CaptchaHandle captcha) {
+        final Outcome<CaptchaHandle> result;
+        if (this.timeoutOver(captcha.getCreated())) {
+            result = Outcome.failure(Failure.TIMEOUT_OVER);
+        } else if (!this.replays.use(captcha.getNonce())) {
+            result = Outcome.failure(Failure.ALREADY_SOLVED);
+        } else {
+            result = Outcome.success(captcha);
+        }
+        return result;
+    }
+
+    private boolean timeoutOver(final long created) {
+        return Instant
+            .ofEpochMilli(created)
+            .plusSeconds(this.captchaProperties.getTimeout())
+            .isBefore(Instant.now());
+    }
+
+    /**
+     * Keyed hash of the answer. Plain hash of a short answer
+     * would be reversed by brute force, so it is signed by the secret key.
+     *
+     * @param nonce  captcha nonce.
+     * @param answer answer to captcha.
+     * @return hash of the answer.
+     */
+    private byte[] answerHash(final UUID nonce, final String answer) {
+        return Arrays.copyOf(
+            this.signer.mac(
+                ANSWER_DOMAIN,
+                ByteBuffer
+                    .allocate(16)
+                    .putLong(nonce.getMostSignificantBits())
+                    .putLong(nonce.getLeastSignificantBits())
+                    .array(),
+                answer.getBytes(StandardCharsets.UTF_8)
+            ),
+            CaptchaHandle.ANSWER_LENGTH
+        );
+    }
+
+    private UUID nonce() {
+        final SecureRandom generator = this.random.get();
+        return new UUID(generator.nextLong(), generator.nextLong());
+    }
+}
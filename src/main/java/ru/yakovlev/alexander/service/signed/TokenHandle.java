@@ -0,0 +1,115 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.service.signed;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Payload of the sealed verification token: owner and creation time
+ * of the captcha, nonce of the captcha, nonce of the token,
+ * keyed hash of the right answer and keyed hash of the given answer.
+ * Hashes are compared on activation, so the token has no verdict
+ * and must be sealed to hide the equality of the hashes.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+@Getter
+@AllArgsConstructor
+public class TokenHandle {
+    private static final byte TYPE = 'T';
+    private static final int LENGTH = 1 + 16 + 8 + 16 + 16
+        + CaptchaHandle.ANSWER_LENGTH * 2;
+    private final UUID owner;
+
+    /**
+     * Creation time of the captcha in milliseconds since the epoch.
+     */
+    private final long created;
+    private final UUID captcha;
+    private final UUID nonce;
+
+    /**
+     * Keyed hash of the right answer.
+     */
+    private final byte[] answer;
+
+    /**
+     * Keyed hash of the given answer.
+     */
+    private final byte[] given;
+
+    /**
+     * Parse payload of the token.
+     *
+     * @param payload verified payload.
+     * @return optional of token handle, empty if it is not a token.
+     * @since 0.1
+     */
+    public static Optional<TokenHandle> of(final ByteBuffer payload) {
+        Optional<TokenHandle> result = Optional.empty();
+        if (payload.remaining() == LENGTH && payload.get() == TYPE) {
+            final UUID owner = new UUID(payload.getLong(), payload.getLong());
+            final long created = payload.getLong();
+            final UUID captcha = new UUID(payload.getLong(), payload.getLong());
+            final UUID nonce = new UUID(payload.getLong(), payload.getLong());
+            final byte[] answer = new byte[CaptchaHandle.ANSWER_LENGTH];
+            payload.get(answer);
+            final byte[] given = new byte[CaptchaHandle.ANSWER_LENGTH];
+            payload.get(given);
+            result = Optional.of(
+                new TokenHandle(owner, created, captcha, nonce, answer, given)
+            );
+        }
+        return result;
+    }
+
+    /**
+     * Return payload of this token.
+     *
+     * @return payload.
+     * @since 0.1
+     */
+    public byte[] payload() {
+        return ByteBuffer
+            .allocate(LENGTH)
+            .put(TYPE)
+            .putLong(this.owner.getMostSignificantBits())
+            .putLong(this.owner.getLeastSignificantBits())
+            .putLong(this.created)
+            .putLong(this.captcha.getMostSignificantBits())
+            .putLong(this.captcha.getLeastSignificantBits())
+            .putLong(this.nonce.getMostSignificantBits())
+            .putLong(this.nonce.getLeastSignificantBits())
+            .put(this.answer)
+            .put(this.given)
+            .array();
+    }
+}
@@ -24,17 +24,23 @@
 
 package ru.yakovlev.alexander.controller;
 
-import java.awt.image.BufferedImage;
+import javax.imageio.ImageIO;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.util.UUID;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import ru.yakovlev.alexander.model.dto.CaptchaResponse;
+import ru.yakovlev.alexander.model.dto.CreatedCaptcha;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.isEmptyString;
@@ -78,7 +84,7 @@ class CaptchaControllerIT {
     }
 
     @Test
-    void whenGetCaptchaThenGetImage() {
+    void whenGetCaptchaThenGetImage() throws IOException {
         final UUID clientId = UUID
             .fromString("7f000101-6e06-121f-816e-06ce2f660000");
         final ResponseEntity<CaptchaResponse> response = this.testRestTemplate
@@ -87,14 +93,43 @@ class CaptchaControllerIT {
                 CaptchaResponse.class, clientId
             );
         final Long captchaId = response.getBody().getCaptchaId();
-        final ResponseEntity<BufferedImage> imgResponse = this.testRestTemplate
+        final ResponseEntity<byte[]> imgResponse = this.testRestTemplate
             .getForEntity(
                 "/clients/{clientId}/captcha/{captchaId}",
-                BufferedImage.class, clientId, captchaId
+                byte[].class, clientId, captchaId
             );
         assertEquals(HttpStatus.OK, imgResponse.getStatusCode());
         final MediaType actualType = imgResponse.getHeaders().getContentType();
         assertEquals(MediaType.IMAGE_PNG, actualType);
+        assertNotNull(ImageIO.read(new ByteArrayInputStream(imgResponse.getBody())));
+        assertEquals(
+            imgResponse.getBody().length,
+            imgResponse.getHeaders().getContentLength()
+        );
+    }
+
+    @Test
+    void whenGetCaptchaWithSameEtagThenNotModified() {
+        final UUID clientId = UUID
+            .fromString("7f000101-6e06-121f-816e-06ce2f660000");
+        final Long captchaId = this.testRestTemplate
+            .postForEntity(
+                "/clients/{clientId}/captcha", "",
+                CaptchaResponse.class, clientId
+            ).getBody().getCaptchaId();
+        final String etag = this.testRestTemplate
+            .getForEntity(
+                "/clients/{clientId}/captcha/{captchaId}",
+                byte[].class, clientId, captchaId
+            ).getHeaders().getETag();
+        final HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(etag);
+        final ResponseEntity<byte[]> imgResponse = this.testRestTemplate
+            .exchange(
+                "/clients/{clientId}/captcha/{captchaId}", HttpMethod.GET,
+                new HttpEntity<>(headers), byte[].class, clientId, captchaId
+            );
+        assertEquals(HttpStatus.NOT_MODIFIED, imgResponse.getStatusCode());
     }
 
     @Test
@@ -125,4 +160,23 @@ class CaptchaControllerIT {
         assertEquals(HttpStatus.CREATED, tokenResponse.getStatusCode());
         assertNotNull(tokenId);
     }
-}
\ No newline at end of file
+
+    @Test
+    void whenPostBatchThenSeveralCaptchaCreated() {
+        final UUID clientId = UUID
+            .fromString("7f000101-6e06-121f-816e-06ce2f660000");
+        final ResponseEntity<CreatedCaptcha[]> response = this.testRestTemplate
+            .postForEntity(
+                "/clients/{clientId}/captcha/batch?count={count}", "",
+                CreatedCaptcha[].class, clientId, 3
+            );
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        final CreatedCaptcha[] captcha = response.getBody();
+        assertEquals(3, captcha.length);
+        for (final CreatedCaptcha created : captcha) {
+            final ResponseEntity<byte[]> image = this.testRestTemplate
+                .getForEntity(created.getUri(), byte[].class);
+            assertEquals(HttpStatus.OK, image.getStatusCode());
+        }
+    }
+}
@@ -24,6 +24,7 @@
 
 package ru.yakovlev.alexander.controller;
 
+import java.util.Arrays;
 import java.util.UUID;
 
 import org.junit.jupiter.api.Test;
@@ -37,6 +38,8 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import ru.yakovlev.alexander.configuration.ServerMode;
 import ru.yakovlev.alexander.model.Captcha;
 import ru.yakovlev.alexander.model.Client;
+import ru.yakovlev.alexander.model.Failure;
+import ru.yakovlev.alexander.model.Outcome;
 import ru.yakovlev.alexander.service.CaptchaService;
 import ru.yakovlev.alexander.service.TokenService;
 import ru.yakovlev.alexander.util.TimeUtc;
@@ -70,10 +73,12 @@ class CaptchaControllerTest {
             .build();
         when(this.captchaService.createNew(clientId))
             .thenReturn(
-                new Captcha(
-                    1L,
-                    new Client(clientId, clientId, 0),
-                    "answer", this.time.now(), false, 0
+                Outcome.success(
+                    new Captcha(
+                        1L,
+                        new Client(clientId, clientId, 0),
+                        "answer", this.time.now(), false, 0
+                    )
                 )
             );
         mockMvc.perform(
@@ -97,10 +102,12 @@ class CaptchaControllerTest {
         final String answer = "qwerty";
         when(this.captchaService.createNew(clientId))
             .thenReturn(
-                new Captcha(
-                    2L,
-                    new Client(clientId, clientId, 0),
-                    answer, this.time.now(), false, 0
+                Outcome.success(
+                    new Captcha(
+                        2L,
+                        new Client(clientId, clientId, 0),
+                        answer, this.time.now(), false, 0
+                    )
                 )
             );
         mockMvc.perform(
@@ -110,4 +117,64 @@ class CaptchaControllerTest {
             MockMvcResultMatchers.jsonPath("$.answer").value(answer)
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    void whenCreateBatchThenResponseContainIdsAndLocations() throws Exception {
+        final UUID clientId = UUID
+            .fromString("7f000101-6e06-121f-816e-06ce2f660002");
+        final CaptchaController controller = new CaptchaController(
+            this.captchaService, this.tokenService, ServerMode.PRODUCTION
+        );
+        final MockMvc mockMvc = MockMvcBuilders
+            .standaloneSetup(controller)
+            .build();
+        final Client client = new Client(clientId, clientId, 0);
+        when(this.captchaService.createBatch(clientId, 2))
+            .thenReturn(
+                Outcome.success(
+                    Arrays.asList(
+                        new Captcha(3L, client, "first", this.time.now(), false, 0),
+                        new Captcha(4L, client, "second", this.time.now(), false, 0)
+                    )
+                )
+            );
+        mockMvc.perform(
+            post("/clients/{clientId}/captcha/batch", clientId)
+                .param("count", "2")
+                .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(
+            MockMvcResultMatchers.status().isCreated()
+        ).andExpect(
+            MockMvcResultMatchers.jsonPath("$[1].captchaId").value(4)
+        ).andExpect(
+            MockMvcResultMatchers.jsonPath("$[0].uri").value(
+                String.format("/clients/%s/captcha/3", clientId)
+            )
+        ).andExpect(
+            MockMvcResultMatchers.jsonPath("$[0].answer").doesNotExist()
+        );
+    }
+
+    @Test
+    void whenClientNotFoundThenResponseIsNotFoundWithMessage() throws Exception {
+        final UUID clientId = UUID
+            .fromString("7f000101-6e06-121f-816e-06ce2f660003");
+        final CaptchaController controller = new CaptchaController(
+            this.captchaService, this.tokenService, ServerMode.PRODUCTION
+        );
+        final MockMvc mockMvc = MockMvcBuilders
+            .standaloneSetup(controller)
+            .build();
+        when(this.captchaService.createNew(clientId))
+            .thenReturn(Outcome.failure(Failure.CLIENT_NOT_FOUND));
+        mockMvc.perform(
+            post("/clients/{clientId}/captcha", clientId)
+                .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(
+            MockMvcResultMatchers.status().isNotFound()
+        ).andExpect(
+            MockMvcResultMatchers.jsonPath("$.message")
+                .value(Failure.CLIENT_NOT_FOUND.getMessage())
+        );
+    }
+}
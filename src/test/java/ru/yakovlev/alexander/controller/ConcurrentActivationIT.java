@@ -0,0 +1,145 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import ru.yakovlev.alexander.model.dto.CaptchaCheckResult;
+import ru.yakovlev.alexander.model.dto.CaptchaResponse;
+import ru.yakovlev.alexander.model.dto.ClientKey;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Stress test of concurrent token activations.
+ * Captcha must be solved exactly once, other activations must fail
+ * with 400 Bad Request.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+@SuppressWarnings("ConstantConditions")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ConcurrentActivationIT {
+    private static final int TOKENS = 20;
+    private static final int ACTIVATIONS = 2000;
+    private static final int THREADS = 32;
+    private final UUID clientId = UUID
+        .fromString("7f000101-6e06-121f-816e-06ce2f660000");
+    private final ClientKey key = new ClientKey(
+        UUID.fromString("7f000101-6e06-121f-816e-06ce2f660001")
+    );
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    @Test
+    void whenActivateTokensConcurrentlyThenCaptchaIsSolvedOnce()
+        throws Exception {
+        final CaptchaResponse captcha = this.testRestTemplate
+            .postForEntity(
+                "/clients/{clientId}/captcha", "",
+                CaptchaResponse.class, this.clientId
+            ).getBody();
+        final List<Long> tokens = new ArrayList<>(TOKENS);
+        for (int i = 0; i < TOKENS; i++) {
+            tokens.add(
+                this.testRestTemplate
+                    .postForEntity(
+                        "/clients/{clientId}/captcha/{captchaId}/solve",
+                        captcha.getAnswer(),
+                        Long.class, this.clientId, captcha.getCaptchaId()
+                    ).getBody()
+            );
+        }
+        final Map<HttpStatus, AtomicInteger> statuses
+            = new ConcurrentHashMap<>();
+        final AtomicInteger solved = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final List<Future<?>> activations = new ArrayList<>(ACTIVATIONS);
+            for (int i = 0; i < ACTIVATIONS; i++) {
+                final Long tokenId = tokens.get(i % TOKENS);
+                activations.add(
+                    executor.submit(
+                        () -> {
+                            final ResponseEntity<CaptchaCheckResult> response
+                                = this.activate(captcha.getCaptchaId(), tokenId);
+                            statuses
+                                .computeIfAbsent(
+                                    response.getStatusCode(),
+                                    status -> new AtomicInteger()
+                                )
+                                .incrementAndGet();
+                            if (response.getStatusCode().equals(HttpStatus.OK)
+                                && response.getBody().isSuccess()) {
+                                solved.incrementAndGet();
+                            }
+                        }
+                    )
+                );
+            }
+            for (final Future<?> activation : activations) {
+                activation.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, solved.get());
+        assertEquals(1, statuses.get(HttpStatus.OK).get());
+        assertEquals(
+            ACTIVATIONS - 1, statuses.get(HttpStatus.BAD_REQUEST).get()
+        );
+        assertTrue(
+            this.activate(captcha.getCaptchaId(), tokens.get(0))
+                .getStatusCode()
+                .is4xxClientError()
+        );
+    }
+
+    private ResponseEntity<CaptchaCheckResult> activate(
+        final Long captchaId, final Long tokenId
+    ) {
+        return this.testRestTemplate.postForEntity(
+            "/clients/{clientId}/captcha/{captchaId}/tokens/{tokenId}/activate",
+            this.key, CaptchaCheckResult.class,
+            this.clientId, captchaId, tokenId
+        );
+    }
+}
@@ -32,13 +32,16 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import ru.yakovlev.alexander.model.Failure;
 import ru.yakovlev.alexander.model.dto.CaptchaCheckResult;
 import ru.yakovlev.alexander.model.dto.CaptchaResponse;
 import ru.yakovlev.alexander.model.dto.ClientKey;
+import ru.yakovlev.alexander.model.dto.ErrorResponse;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.isEmptyString;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -83,4 +86,72 @@ class VerificationTokenControllerIT {
         assertTrue(result.isSuccess());
         assertThat(result.getError(), isEmptyString());
     }
-}
\ No newline at end of file
+
+    @Test
+    void whenActivateTokenTwiceThenSecondResponseIsBadRequest() {
+        final UUID clientId = UUID
+            .fromString("7f000101-6e06-121f-816e-06ce2f660000");
+        final ClientKey key = new ClientKey(
+            UUID.fromString("7f000101-6e06-121f-816e-06ce2f660001")
+        );
+        final CaptchaResponse captcha = this.testRestTemplate
+            .postForEntity(
+                "/clients/{clientId}/captcha", "",
+                CaptchaResponse.class, clientId
+            ).getBody();
+        final Long tokenId = this.testRestTemplate
+            .postForEntity(
+                "/clients/{clientId}/captcha/{captchaId}/solve",
+                captcha.getAnswer(),
+                Long.class, clientId, captcha.getCaptchaId()
+            ).getBody();
+        final String activation = "/clients/{clientId}/captcha/{captchaId}/"
+            + "tokens/{tokenId}/activate";
+        assertEquals(
+            HttpStatus.OK,
+            this.testRestTemplate.postForEntity(
+                activation, key, CaptchaCheckResult.class,
+                clientId, captcha.getCaptchaId(), tokenId
+            ).getStatusCode()
+        );
+        final ResponseEntity<ErrorResponse> second = this.testRestTemplate
+            .postForEntity(
+                activation, key, ErrorResponse.class,
+                clientId, captcha.getCaptchaId(), tokenId
+            );
+        assertEquals(HttpStatus.BAD_REQUEST, second.getStatusCode());
+        assertEquals(
+            Failure.ALREADY_ACTIVATED.getMessage(),
+            second.getBody().getMessage()
+        );
+    }
+
+    @Test
+    void whenActivateWithWrongAnswerThenCheckIsNotSuccess() {
+        final UUID clientId = UUID
+            .fromString("7f000101-6e06-121f-816e-06ce2f660000");
+        final CaptchaResponse captcha = this.testRestTemplate
+            .postForEntity(
+                "/clients/{clientId}/captcha", "",
+                CaptchaResponse.class, clientId
+            ).getBody();
+        final Long tokenId = this.testRestTemplate
+            .postForEntity(
+                "/clients/{clientId}/captcha/{captchaId}/solve",
+                "wrong",
+                Long.class, clientId, captcha.getCaptchaId()
+            ).getBody();
+        final ResponseEntity<CaptchaCheckResult> checkResult = this.testRestTemplate
+            .postForEntity(
+                "/clients/{clientId}/captcha/{captchaId}/" +
+                    "tokens/{tokenId}/activate",
+                new ClientKey(
+                    UUID.fromString("7f000101-6e06-121f-816e-06ce2f660001")
+                ),
+                CaptchaCheckResult.class,
+                clientId, captcha.getCaptchaId(), tokenId
+            );
+        assertEquals(HttpStatus.OK, checkResult.getStatusCode());
+        assertFalse(checkResult.getBody().isSuccess());
+    }
+}
@@ -32,14 +32,14 @@ import org.hamcrest.core.IsNot;
 import org.hamcrest.text.IsEmptyString;
 import org.hamcrest.text.StringContainsInOrder;
 import org.junit.jupiter.api.Test;
-import org.springframework.web.server.ResponseStatusException;
 import ru.yakovlev.alexander.model.dto.CaptchaCheckResult;
 import ru.yakovlev.alexander.util.TimeUtc;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -52,7 +52,7 @@ class CaptchaTest {
     private final TimeUtc time = new TimeUtc();
 
     @Test
-    void whenTimeoutIsNotOverThenCheckTimeoutNotThrowException() {
+    void whenTimeoutIsNotOverThenCaptchaIsActive() {
         final int timeout = 10;
         final UUID uuid = UUID
             .fromString("7f000101-6e1f-192d-816e-1ffa54780000");
@@ -61,11 +61,11 @@ class CaptchaTest {
             new Client(uuid, uuid, 0),
             "", this.time.now(), false, 0
         );
-        assertDoesNotThrow(() -> captcha.checkTimeout(timeout));
+        assertTrue(captcha.active(timeout).isSuccess());
     }
 
     @Test
-    void whenTimeoutIsOverThenCheckTimeoutThrowException() {
+    void whenTimeoutIsOverThenCaptchaIsNotActive() {
         final int timeout = 10;
         final LocalDateTime afterTimeout = this.time.nowAfterTimeout(timeout);
         final UUID uuid = UUID
@@ -75,14 +75,12 @@ class CaptchaTest {
             new Client(uuid, uuid, 0),
             "", afterTimeout, false, 0
         );
-        assertThrows(
-            ResponseStatusException.class,
-            () -> captcha.checkTimeout(timeout))
-        ;
+        assertTrue(captcha.timeoutOver(timeout));
+        assertEquals(Failure.TIMEOUT_OVER, captcha.active(timeout).getFailure());
     }
 
     @Test
-    void whenCaptchaIsNotSolvedThenCheckSolvedDoesNotThrowException() {
+    void whenCaptchaIsNotSolvedThenCaptchaIsActive() {
         final UUID uuid = UUID
             .fromString("7f000101-6e1f-192d-816e-1ffa54780002");
         final Captcha captcha = new Captcha(
@@ -90,11 +88,11 @@ class CaptchaTest {
             new Client(uuid, uuid, 0),
             "", this.time.now(), false, 0
         );
-        assertDoesNotThrow(captcha::checkSolved);
+        assertTrue(captcha.active(10).isSuccess());
     }
 
     @Test
-    void whenCaptchaIsSolvedThenCheckSolvedThrowException() {
+    void whenCaptchaIsSolvedThenCaptchaIsNotActive() {
         final UUID uuid = UUID
             .fromString("7f000101-6e1f-192d-816e-1ffa54780003");
         final Captcha captcha = new Captcha(
@@ -102,11 +100,11 @@ class CaptchaTest {
             new Client(uuid, uuid, 0),
             "", this.time.now(), true, 0
         );
-        assertThrows(ResponseStatusException.class, captcha::checkSolved);
+        assertEquals(Failure.ALREADY_SOLVED, captcha.active(10).getFailure());
     }
 
     @Test
-    void whenSecretKeyWrongThenSolveThrowException() {
+    void whenSecretKeyWrongThenSolveFails() {
         final LocalDateTime afterTimeout = this.time.now();
         final UUID uuid = UUID
             .fromString("7f000101-6e1f-192d-816e-1ffa54780004");
@@ -119,14 +117,14 @@ class CaptchaTest {
             new Client(uuid, secret, 0),
             "", afterTimeout, false, 0
         );
-        assertThrows(
-            ResponseStatusException.class,
-            () -> captcha.solve("av", wrongSecret, 7)
+        assertEquals(
+            Failure.WRONG_SECRET_KEY,
+            captcha.solve("av", wrongSecret, 7).getFailure()
         );
     }
 
     @Test
-    void whenSolveCaptchaAndTimeoutIsOverThenThrowException() {
+    void whenSolveCaptchaAndTimeoutIsOverThenSolveFails() {
         final int timeout = 5;
         final LocalDateTime afterTimeout = this.time.nowAfterTimeout(timeout);
         final UUID uuid = UUID
@@ -136,14 +134,14 @@ class CaptchaTest {
             new Client(uuid, uuid, 0),
             "", afterTimeout, false, 0
         );
-        assertThrows(
-            ResponseStatusException.class,
-            () -> captcha.solve("av", uuid, timeout)
+        assertEquals(
+            Failure.TIMEOUT_OVER,
+            captcha.solve("av", uuid, timeout).getFailure()
         );
     }
 
     @Test
-    void whenSolveCaptchaWhichHasBeenSolvedThenThrowException() {
+    void whenSolveCaptchaWhichHasBeenSolvedThenSolveFails() {
         final UUID uuid = UUID
             .fromString("7f000101-6e1f-192d-816e-1ffa54780008");
         final Captcha captcha = new Captcha(
@@ -151,9 +149,9 @@ class CaptchaTest {
             new Client(uuid, uuid, 0),
             "", this.time.now(), true, 0
         );
-        assertThrows(
-            ResponseStatusException.class,
-            () -> captcha.solve("arg", uuid, 30)
+        assertEquals(
+            Failure.ALREADY_SOLVED,
+            captcha.solve("arg", uuid, 30).getFailure()
         );
     }
 
@@ -167,7 +165,9 @@ class CaptchaTest {
             new Client(uuid, uuid, 0),
             answer, this.time.now(), false, 0
         );
-        final CaptchaCheckResult result = captcha.solve(answer, uuid, 20);
+        final CaptchaCheckResult result = captcha
+            .solve(answer, uuid, 20)
+            .getValue();
         assertTrue(result.isSuccess());
     }
 
@@ -263,4 +263,37 @@ class CaptchaTest {
         assertFalse(result.isSuccess());
         assertThat(result.getError(), new IsNot<>(new IsEmptyString()));
     }
-}
\ No newline at end of file
+
+    @Test
+    void whenCheckAnswerThenResultIsShared() {
+        final UUID uuid = UUID
+            .fromString("7f000101-6e1f-192d-816e-1ffa54780016");
+        final Captcha captcha = new Captcha(
+            12L,
+            new Client(uuid, uuid, 0),
+            "abc", this.time.now(), false, 0
+        );
+        assertSame(CaptchaCheckResult.SUCCESS, captcha.check("abc"));
+        assertSame(CaptchaCheckResult.WRONG_ANSWER, captcha.check("abd"));
+        assertSame(captcha.check("ab"), captcha.check("ba"));
+    }
+
+    @Test
+    void whenAnswerIsLongerThanSharedResultsThenErrorContainsLengths() {
+        final UUID uuid = UUID
+            .fromString("7f000101-6e1f-192d-816e-1ffa54780017");
+        final Captcha captcha = new Captcha(
+            13L,
+            new Client(uuid, uuid, 0),
+            "abc", this.time.now(), false, 0
+        );
+        final CaptchaCheckResult result = captcha.check(
+            new String(new char[100]).replace('\0', 'a')
+        );
+        assertFalse(result.isSuccess());
+        assertThat(
+            result.getError(),
+            new StringContainsInOrder(Arrays.asList("100", "3"))
+        );
+    }
+}
@@ -27,10 +27,9 @@ package ru.yakovlev.alexander.model;
 import java.util.UUID;
 
 import org.junit.jupiter.api.Test;
-import org.springframework.web.server.ResponseStatusException;
 
-import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Client test.
@@ -41,17 +40,17 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 class ClientTest {
 
     @Test
-    void whenAuthenticateWithSameSecretKeyThenNotThrowException() {
+    void whenAuthenticateWithSameSecretKeyThenAuthenticated() {
         final UUID uuid = UUID
             .fromString("7f000101-6e1f-192d-816e-1ffa54780000");
         final UUID secret = UUID
             .fromString("7f000101-6e1f-192d-816e-1ffa54780001");
         final Client client = new Client(uuid, secret, 0);
-        assertDoesNotThrow(() -> client.authenticate(secret));
+        assertTrue(client.authenticated(secret));
     }
 
     @Test
-    void whenAuthenticateWithDifferentSecretKeyThenThrowException() {
+    void whenAuthenticateWithDifferentSecretKeyThenNotAuthenticated() {
         final UUID uuid = UUID
             .fromString("7f000101-6e1f-192d-816e-1ffa54780002");
         final UUID secret = UUID
@@ -59,9 +58,6 @@ class ClientTest {
         final UUID wrongSecret = UUID
             .fromString("7f000101-6e1f-192d-816e-1ffa54780004");
         final Client client = new Client(uuid, secret, 0);
-        assertThrows(
-            ResponseStatusException.class,
-            () -> client.authenticate(wrongSecret)
-        );
+        assertFalse(client.authenticated(wrongSecret));
     }
 }
\ No newline at end of file
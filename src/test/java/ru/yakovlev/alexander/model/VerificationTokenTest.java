@@ -27,11 +27,11 @@ package ru.yakovlev.alexander.model;
 import java.util.UUID;
 
 import org.junit.jupiter.api.Test;
-import org.springframework.web.server.ResponseStatusException;
 import ru.yakovlev.alexander.model.dto.CaptchaCheckResult;
 import ru.yakovlev.alexander.util.TimeUtc;
 
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -57,13 +57,15 @@ class VerificationTokenTest {
         final VerificationToken token = new VerificationToken(
         0L, answer, captcha, false, 0
         );
-        final CaptchaCheckResult result = token.activate(uuid, timeout);
+        final CaptchaCheckResult result = token
+            .activate(uuid, timeout)
+            .getValue();
         assertTrue(result.isSuccess());
         assertTrue(token.isActivated());
     }
 
     @Test
-    void whenActivateTokenThatIsAlreadyActivatedThenThrowException() {
+    void whenActivateTokenThatIsAlreadyActivatedThenActivationFails() {
         final String answer = "brty";
         final UUID uuid = UUID
             .fromString("7f000101-6e1f-192d-816e-1ffa54780001");
@@ -76,9 +78,8 @@ class VerificationTokenTest {
             ),
             true, 0
         );
-        assertThrows(
-            ResponseStatusException.class,
-            () -> token.activate(uuid, 1)
+        assertEquals(
+            Failure.ALREADY_ACTIVATED, token.activate(uuid, 1).getFailure()
         );
     }
 
@@ -97,12 +98,14 @@ class VerificationTokenTest {
             ),
             true, 0
         );
-        final CaptchaCheckResult result = token.resultOfCaptchaCheck();
+        final CaptchaCheckResult result = token
+            .resultOfCaptchaCheck()
+            .getValue();
         assertTrue(result.isSuccess());
     }
 
     @Test
-    void whenCallResultOfCaptchaCheckOnNotActivatedTokenThenThrowException() {
+    void whenCallResultOfCaptchaCheckOnNotActivatedTokenThenFails() {
         final UUID uuid = UUID
             .fromString("7f000101-6e1f-192d-816e-1ffa54780003");
         final VerificationToken token = new VerificationToken(
@@ -114,6 +117,31 @@ class VerificationTokenTest {
             ),
             false, 0
         );
-        assertThrows(ResponseStatusException.class, token::resultOfCaptchaCheck);
+        assertEquals(
+            Failure.NOT_ACTIVATED, token.resultOfCaptchaCheck().getFailure()
+        );
+    }
+
+    @Test
+    void whenActivateWithWrongSecretKeyThenTokenIsNotActivated() {
+        final String answer = "qwer";
+        final UUID uuid = UUID
+            .fromString("7f000101-6e1f-192d-816e-1ffa54780004");
+        final UUID wrongSecret = UUID
+            .fromString("7f000101-6e1f-192d-816e-1ffa54780005");
+        final VerificationToken token = new VerificationToken(
+            4L, answer,
+            new Captcha(
+                4L,
+                new Client(uuid, uuid, 0),
+                answer, this.time.now(), false, 0
+            ),
+            false, 0
+        );
+        assertEquals(
+            Failure.WRONG_SECRET_KEY,
+            token.activate(wrongSecret, 10).getFailure()
+        );
+        assertFalse(token.isActivated());
     }
-}
\ No newline at end of file
+}
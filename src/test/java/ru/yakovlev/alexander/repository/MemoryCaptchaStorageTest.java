@@ -0,0 +1,169 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.repository;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import ru.yakovlev.alexander.model.Captcha;
+import ru.yakovlev.alexander.model.Client;
+import ru.yakovlev.alexander.model.Failure;
+import ru.yakovlev.alexander.model.VerificationToken;
+import ru.yakovlev.alexander.util.TimeUtc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Memory captcha storage test.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+class MemoryCaptchaStorageTest {
+    private final TimeUtc time = new TimeUtc();
+
+    @Test
+    void whenSaveCaptchaThenFoundByIdAndOwner() {
+        final UUID clientId = UUID
+            .fromString("7f000101-6e1f-192d-816e-1ffa54780000");
+        try (MemoryCaptchaStorage storage = new MemoryCaptchaStorage(60)) {
+            final Captcha captcha = storage.save(
+                new Captcha(new Client(clientId, clientId, 0), "answer")
+            );
+            assertNotNull(captcha.getId());
+            assertSame(
+                captcha,
+                storage.findByIdAndOwnerId(captcha.getId(), clientId).orElseThrow()
+            );
+        }
+    }
+
+    @Test
+    void whenFindCaptchaOfAnotherClientThenEmpty() {
+        final UUID clientId = UUID
+            .fromString("7f000101-6e1f-192d-816e-1ffa54780001");
+        final UUID anotherId = UUID
+            .fromString("7f000101-6e1f-192d-816e-1ffa54780002");
+        try (MemoryCaptchaStorage storage = new MemoryCaptchaStorage(60)) {
+            final Captcha captcha = storage.save(
+                new Captcha(new Client(clientId, clientId, 0), "answer")
+            );
+            assertFalse(
+                storage.findByIdAndOwnerId(captcha.getId(), anotherId).isPresent()
+            );
+        }
+    }
+
+    @Test
+    void whenSaveTokenThenFoundByIds() {
+        final UUID clientId = UUID
+            .fromString("7f000101-6e1f-192d-816e-1ffa54780003");
+        try (MemoryCaptchaStorage storage = new MemoryCaptchaStorage(60)) {
+            final Captcha captcha = storage.save(
+                new Captcha(new Client(clientId, clientId, 0), "answer")
+            );
+            final VerificationToken token = storage.save(
+                new VerificationToken("answer", captcha)
+            );
+            assertSame(
+                token,
+                storage.findByIdsWithFetch(
+                    clientId, captcha.getId(), token.getId()
+                ).orElseThrow()
+            );
+            assertFalse(
+                storage.findByIdsWithFetch(
+                    clientId, captcha.getId() + 1, token.getId()
+                ).isPresent()
+            );
+        }
+    }
+
+    @Test
+    void whenActivateTokenTwiceThenSecondActivationFails() {
+        final UUID clientId = UUID
+            .fromString("7f000101-6e1f-192d-816e-1ffa54780005");
+        try (MemoryCaptchaStorage storage = new MemoryCaptchaStorage(60)) {
+            final Captcha captcha = storage.save(
+                new Captcha(new Client(clientId, clientId, 0), "answer")
+            );
+            final VerificationToken token = storage.save(
+                new VerificationToken("answer", captcha)
+            );
+            assertTrue(
+                storage.activate(
+                    clientId, captcha.getId(), token.getId(), clientId, 60
+                ).getValue().isSuccess()
+            );
+            assertEquals(
+                Failure.ALREADY_ACTIVATED,
+                storage.activate(
+                    clientId, captcha.getId(), token.getId(), clientId, 60
+                ).getFailure()
+            );
+            assertTrue(captcha.isSolved());
+        }
+    }
+
+    @Test
+    void whenPurgeThenExpiredCaptchaAndTokensRemoved() {
+        final int ttl = 10;
+        final UUID clientId = UUID
+            .fromString("7f000101-6e1f-192d-816e-1ffa54780004");
+        try (MemoryCaptchaStorage storage = new MemoryCaptchaStorage(ttl)) {
+            final Captcha captcha = storage.save(
+                new Captcha(
+                    null, new Client(clientId, clientId, 0),
+                    "answer", this.time.nowAfterTimeout(ttl), false, 0
+                )
+            );
+            final VerificationToken token = storage.save(
+                new VerificationToken("answer", captcha)
+            );
+            storage.purge();
+            assertFalse(
+                storage.findByIdAndOwnerId(captcha.getId(), clientId).isPresent()
+            );
+            assertFalse(
+                storage.findByIdsWithFetch(
+                    clientId, captcha.getId(), token.getId()
+                ).isPresent()
+            );
+        }
+    }
+
+    @Test
+    void whenTtlLessThanOneThenThrowException() {
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> new MemoryCaptchaStorage(0)
+        );
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+
+/**
+ * Query plan regression test. Repository queries are run, and the SQL
+ * generated by Hibernate is explained with the same parameters:
+ * lookups of captcha and tokens must use indexes instead of the full table scan.
+ * Changes of the tests are rolled back.
+ * Runs against the database of the active profile: H2 or PostgreSQL.
+ * H2 indexes foreign keys itself, so the indexes of foreign keys
+ * are checked only on PostgreSQL, the build runs this test on both.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+@SpringBootTest(
+    properties = "spring.jpa.properties.hibernate.session_factory"
+        + ".statement_inspector=ru.yakovlev.alexander.repository.LastStatement"
+)
+@Transactional
+class QueryPlanIT {
+    private static final UUID CLIENT = UUID.fromString(
+        "7f000101-6e06-121f-816e-06ce2f660000"
+    );
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private VerificationTokenRepository tokenRepository;
+    @Autowired
+    private CaptchaRequestRepository captchaRepository;
+
+    @Test
+    void whenFindTokenByIdsThenTablesAreNotScanned() {
+        this.tokenRepository.findByIdsWithFetch(CLIENT, 2L, 1L);
+        this.assertIndexScan(
+            this.plan(LastStatement.sql(), CLIENT, 2L, 1L), "pkey"
+        );
+    }
+
+    @Test
+    void whenDeleteTokensOfCaptchaThenTheirIndexIsUsed() {
+        this.tokenRepository.deleteByCaptchaIds(List.of(1L, 2L));
+        this.assertIndexScan(
+            this.plan(LastStatement.sql(), 1L, 2L),
+            "idx_verification_token_captcha"
+        );
+    }
+
+    @Test
+    void whenFindOldCaptchaThenCreationIndexIsUsed() {
+        final LocalDateTime created = LocalDateTime.of(2019, 11, 21, 0, 0);
+        final int size = 10;
+        this.captchaRepository.findIdsCreatedBefore(
+            created, PageRequest.of(0, size)
+        );
+        this.assertIndexScan(
+            this.plan(LastStatement.sql(), Timestamp.valueOf(created), size),
+            "idx_captcha_created"
+        );
+    }
+
+    /**
+     * Assert the plan has no table scan. On PostgreSQL the plan
+     * must use the index, H2 names indexes of foreign keys itself.
+     *
+     * @param plan  lines of the plan.
+     * @param index name of the index in PostgreSQL.
+     */
+    private void assertIndexScan(final List<String> plan, final String index) {
+        assertThat(plan, everyItem(not(containsString("tableScan"))));
+        assertThat(plan, everyItem(not(containsString("Seq Scan"))));
+        if (this.postgres()) {
+            assertThat(plan, hasItem(containsString(index)));
+        }
+    }
+
+    private boolean postgres() {
+        return this.jdbcTemplate.execute(
+            (ConnectionCallback<Boolean>) connection -> connection
+                .getMetaData()
+                .getDatabaseProductName()
+                .equalsIgnoreCase("PostgreSQL")
+        );
+    }
+
+    private List<String> plan(final String sql, final Object... parameters) {
+        final boolean postgres = this.postgres();
+        return this.jdbcTemplate.execute(
+            (ConnectionCallback<List<String>>) connection -> {
+                final List<String> lines = new ArrayList<>();
+                try (Statement settings = connection.createStatement();
+                     PreparedStatement explain = connection
+                         .prepareStatement("EXPLAIN " + sql)) {
+                    if (postgres) {
+                        // Tiny tables are scanned even with an index.
+                        settings.execute("SET enable_seqscan = off");
+                    }
+                    for (int i = 0; i < parameters.length; i++) {
+                        explain.setObject(i + 1, parameters[i]);
+                    }
+                    try (ResultSet rows = explain.executeQuery()) {
+                        while (rows.next()) {
+                            lines.add(rows.getString(1));
+                        }
+                    } finally {
+                        if (postgres) {
+                            settings.execute("RESET enable_seqscan");
+                        }
+                    }
+                }
+                return lines;
+            }
+        );
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.repository;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.yakovlev.alexander.model.Captcha;
+import ru.yakovlev.alexander.model.Client;
+import ru.yakovlev.alexander.model.VerificationToken;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Write-behind token storage test.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+@ExtendWith(MockitoExtension.class)
+class WriteBehindTokenStoreTest {
+    private final UUID clientId = UUID
+        .fromString("7f000101-6e1f-192d-816e-1ffa54780000");
+    private final Captcha captcha = new Captcha(
+        1L, new Client(this.clientId, this.clientId, 0), "answer",
+        LocalDateTime.now(ZoneOffset.UTC), false, 0
+    );
+    @Mock
+    private TokenStore tokenStore;
+    @Mock
+    private TokenIds ids;
+    @Mock
+    private JdbcTokenWriter writer;
+
+    @Test
+    void whenTokenIsNotWrittenThenFoundFromQueue() throws Exception {
+        final CountDownLatch written = new CountDownLatch(1);
+        doAnswer(
+            invocation -> {
+                written.await();
+                return null;
+            }
+        ).when(this.writer).insert(anyList());
+        when(this.ids.next()).thenReturn(1001L);
+        try (WriteBehindTokenStore store = new WriteBehindTokenStore(
+            this.tokenStore, this.ids, this.writer, 10, 10
+        )) {
+            final VerificationToken token = store.save(
+                new VerificationToken("answer", this.captcha)
+            );
+            assertEquals(Long.valueOf(1001L), token.getId());
+            assertEquals(
+                Optional.of(token),
+                store.findByIdsWithFetch(
+                    this.clientId, this.captcha.getId(), token.getId()
+                )
+            );
+            written.countDown();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void whenCloseThenQueuedTokensAreWritten() throws Exception {
+        when(this.ids.next()).thenReturn(1001L, 1002L, 1003L);
+        try (WriteBehindTokenStore store = new WriteBehindTokenStore(
+            this.tokenStore, this.ids, this.writer, 10, 2
+        )) {
+            for (int i = 0; i < 3; i++) {
+                store.save(new VerificationToken("answer", this.captcha));
+            }
+        }
+        final ArgumentCaptor<List<VerificationToken>> batches = ArgumentCaptor
+            .forClass(List.class);
+        verify(this.writer, atLeastOnce()).insert(batches.capture());
+        assertEquals(
+            List.of(1001L, 1002L, 1003L),
+            batches
+                .getAllValues()
+                .stream()
+                .flatMap(List::stream)
+                .map(VerificationToken::getId)
+                .sorted()
+                .collect(Collectors.toList())
+        );
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.service;
+
+import java.time.LocalDateTime;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.yakovlev.alexander.configuration.AppProperties;
+import ru.yakovlev.alexander.repository.JpaCaptchaPurge;
+import ru.yakovlev.alexander.repository.PurgedChunk;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Captcha reaper test.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+@ExtendWith(MockitoExtension.class)
+class CaptchaReaperTest {
+    @Mock
+    private JpaCaptchaPurge purge;
+
+    @Test
+    void whenChunkIsFullThenDeleteNextChunk() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        when(this.purge.deleteCreatedBefore(any(LocalDateTime.class), eq(2)))
+            .thenReturn(new PurgedChunk(2, 3))
+            .thenReturn(new PurgedChunk(2, 2))
+            .thenReturn(new PurgedChunk(1, 0));
+        try (CaptchaReaper reaper = new CaptchaReaper(
+            this.purge, 60, new AppProperties.Purge(3600, 2, 0), registry
+        )) {
+            assertEquals(5, reaper.purge());
+        }
+        verify(this.purge, times(3))
+            .deleteCreatedBefore(any(LocalDateTime.class), eq(2));
+        assertEquals(
+            5.0,
+            registry.counter("captcha.purge.deleted", "entity", "captcha").count()
+        );
+        assertEquals(
+            5.0,
+            registry.counter("captcha.purge.deleted", "entity", "token").count()
+        );
+        assertEquals(1, registry.timer("captcha.purge.duration").count());
+    }
+
+    @Test
+    void whenNothingToDeleteThenDeleteOneChunk() {
+        when(this.purge.deleteCreatedBefore(any(LocalDateTime.class), eq(10)))
+            .thenReturn(new PurgedChunk(0, 0));
+        try (CaptchaReaper reaper = new CaptchaReaper(
+            this.purge, 60, new AppProperties.Purge(3600, 10, 0),
+            new SimpleMeterRegistry()
+        )) {
+            assertEquals(0, reaper.purge());
+        }
+        verify(this.purge).deleteCreatedBefore(any(LocalDateTime.class), eq(10));
+    }
+
+    @Test
+    void whenBatchSizeLessThanOneThenThrowException() {
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> new CaptchaReaper(
+                this.purge, 60, new AppProperties.Purge(3600, 0, 0),
+                new SimpleMeterRegistry()
+            )
+        );
+    }
+}
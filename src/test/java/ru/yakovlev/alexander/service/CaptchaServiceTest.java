@@ -31,15 +31,22 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.web.server.ResponseStatusException;
 import ru.yakovlev.alexander.configuration.AppProperties;
 import ru.yakovlev.alexander.model.Captcha;
 import ru.yakovlev.alexander.model.Client;
-import ru.yakovlev.alexander.repository.CaptchaRequestRepository;
+import ru.yakovlev.alexander.model.Failure;
+import ru.yakovlev.alexander.repository.CaptchaStore;
+import ru.yakovlev.alexander.service.image.CaptchaImageCache;
+import ru.yakovlev.alexander.service.image.CaptchaImagePool;
+import ru.yakovlev.alexander.service.image.CaptchaRenderer;
 import ru.yakovlev.alexander.util.TimeUtc;
 
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 /**
@@ -53,9 +60,19 @@ class CaptchaServiceTest {
     @Mock
     private ClientService clientService;
     @Mock
-    private CaptchaRequestRepository captchaRepository;
+    private CaptchaStore captchaStore;
     @Mock
-    private RandomStringStream randomStringStream;
+    private CaptchaImagePool imagePool;
+    @Mock
+    private CaptchaImageCache imageCache;
+    @Mock
+    private CaptchaRenderer renderer;
+    @Mock
+    private ReplayFilter replays;
+    @Mock
+    private RateLimiter rateLimiter;
+    @Spy
+    private StageMetrics metrics = StageMetrics.disabled();
     @Mock
     private AppProperties appProperties;
     @InjectMocks
@@ -63,24 +80,26 @@ class CaptchaServiceTest {
     private final TimeUtc time = new TimeUtc();
 
     @Test
-    void whenFindActiveCaptchaAndCaptchaNotExistThenThrowException() {
+    void whenFindActiveCaptchaAndCaptchaNotExistThenFails() {
         final UUID clientId = UUID
             .fromString("7f000101-6e1f-192d-816e-1ffa54780000");
         final Long captchaId = 1L;
-        when(this.captchaRepository.findByIdAndOwnerId(captchaId, clientId))
+        when(this.captchaStore.findByIdAndOwnerId(captchaId, clientId))
             .thenReturn(Optional.empty());
-        assertThrows(
-            ResponseStatusException.class,
-            () -> this.captchaService.findActiveCaptcha(clientId, captchaId)
+        assertEquals(
+            Failure.CAPTCHA_NOT_FOUND,
+            this.captchaService
+                .findActiveCaptcha(clientId, captchaId)
+                .getFailure()
         );
     }
 
     @Test
-    void whenFindActiveCaptchaAndCaptchaHasBeenSolvedThenThrowException() {
+    void whenFindActiveCaptchaAndCaptchaHasBeenSolvedThenFails() {
         final UUID clientId = UUID
             .fromString("7f000101-6e1f-192d-816e-1ffa54780001");
         final Long captchaId = 2L;
-        when(this.captchaRepository.findByIdAndOwnerId(captchaId, clientId))
+        when(this.captchaStore.findByIdAndOwnerId(captchaId, clientId))
             .thenReturn(
                 Optional.of(
                     new Captcha(
@@ -90,25 +109,28 @@ class CaptchaServiceTest {
                     )
                 )
             );
-        assertThrows(
-            ResponseStatusException.class,
-            () -> this.captchaService.findActiveCaptcha(clientId, captchaId)
+        assertEquals(
+            Failure.ALREADY_SOLVED,
+            this.captchaService
+                .findActiveCaptcha(clientId, captchaId)
+                .getFailure()
         );
     }
 
     @Test
-    void whenFindActiveCaptchaAndTimeoutIsOverThenThrowException() {
+    void whenFindActiveCaptchaAndTimeoutIsOverThenFails() {
         final int timeout = 7;
         final UUID clientId = UUID
             .fromString("7f000101-6e1f-192d-816e-1ffa54780002");
         final Long captchaId = 3L;
         final AppProperties.Captcha properties
-            = new AppProperties.Captcha(6, "a", timeout);
+            = new AppProperties.Captcha(6, "a", timeout, 10);
         final CaptchaService service = new CaptchaService(
-            this.clientService, this.captchaRepository,
-            this.randomStringStream, properties
+            this.clientService, this.captchaStore,
+            this.imagePool, this.imageCache, this.renderer,
+            this.replays, this.rateLimiter, this.metrics, properties
         );
-        when(this.captchaRepository.findByIdAndOwnerId(captchaId, clientId))
+        when(this.captchaStore.findByIdAndOwnerId(captchaId, clientId))
             .thenReturn(
                 Optional.of(
                     new Captcha(
@@ -119,9 +141,80 @@ class CaptchaServiceTest {
                     )
                 )
             );
-        assertThrows(
-            ResponseStatusException.class,
-            () -> service.findActiveCaptcha(clientId, captchaId)
+        assertEquals(
+            Failure.TIMEOUT_OVER,
+            service.findActiveCaptcha(clientId, captchaId).getFailure()
+        );
+    }
+
+    @Test
+    void whenCreateBatchWithCountOutOfRangeThenFails() {
+        final UUID clientId = UUID
+            .fromString("7f000101-6e1f-192d-816e-1ffa54780003");
+        final CaptchaService service = new CaptchaService(
+            this.clientService, this.captchaStore,
+            this.imagePool, this.imageCache, this.renderer,
+            this.replays, this.rateLimiter, this.metrics,
+            new AppProperties.Captcha(6, "a", 60, 10)
+        );
+        assertEquals(
+            Failure.WRONG_BATCH_SIZE,
+            service.createBatch(clientId, 0).getFailure()
+        );
+        assertEquals(
+            Failure.WRONG_BATCH_SIZE,
+            service.createBatch(clientId, 11).getFailure()
+        );
+    }
+
+    @Test
+    void whenFindRecentlySolvedCaptchaThenFailsWithoutStorage() {
+        final UUID clientId = UUID
+            .fromString("7f000101-6e1f-192d-816e-1ffa54780004");
+        final Long captchaId = 4L;
+        when(this.replays.solved(clientId, captchaId)).thenReturn(true);
+        assertEquals(
+            Failure.ALREADY_SOLVED,
+            this.captchaService
+                .findActiveCaptcha(clientId, captchaId)
+                .getFailure()
+        );
+        verify(this.captchaStore, never()).findByIdAndOwnerId(captchaId, clientId);
+    }
+
+    @Test
+    void whenAnotherClientFindsRecentlySolvedCaptchaThenNotFound() {
+        final UUID clientId = UUID
+            .fromString("7f000101-6e1f-192d-816e-1ffa54780006");
+        final UUID otherId = UUID
+            .fromString("7f000101-6e1f-192d-816e-1ffa54780007");
+        final Long captchaId = 5L;
+        try (ReplayFilter filter = new ReplayFilter(60, 1000)) {
+            final CaptchaService service = new CaptchaService(
+                this.clientService, this.captchaStore,
+                this.imagePool, this.imageCache, this.renderer,
+                filter, this.rateLimiter, this.metrics,
+                new AppProperties.Captcha(6, "a", 60, 10)
+            );
+            filter.solve(clientId, captchaId);
+            when(this.captchaStore.findByIdAndOwnerId(captchaId, otherId))
+                .thenReturn(Optional.empty());
+            assertEquals(
+                Failure.CAPTCHA_NOT_FOUND,
+                service.findActiveCaptcha(otherId, captchaId).getFailure()
+            );
+        }
+    }
+
+    @Test
+    void whenCreateNewOverRateThenFailsWithoutStorage() {
+        final UUID clientId = UUID
+            .fromString("7f000101-6e1f-192d-816e-1ffa54780005");
+        when(this.rateLimiter.tryAcquire(clientId, 1)).thenReturn(false);
+        assertEquals(
+            Failure.RATE_LIMITED,
+            this.captchaService.createNew(clientId).getFailure()
         );
+        verifyZeroInteractions(this.clientService, this.imagePool);
     }
-}
\ No newline at end of file
+}
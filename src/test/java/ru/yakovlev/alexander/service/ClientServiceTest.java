@@ -27,15 +27,22 @@ package ru.yakovlev.alexander.service;
 import java.util.Optional;
 import java.util.UUID;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.web.server.ResponseStatusException;
+import org.springframework.dao.DataIntegrityViolationException;
+import ru.yakovlev.alexander.model.Client;
+import ru.yakovlev.alexander.model.Failure;
 import ru.yakovlev.alexander.repository.ClientRepository;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -48,17 +55,97 @@ import static org.mockito.Mockito.when;
 class ClientServiceTest {
     @Mock
     private ClientRepository clientRepository;
-    @InjectMocks
     private ClientService service;
 
+    @BeforeEach
+    void setUp() {
+        this.service = new ClientService(
+            this.clientRepository,
+            Caffeine.newBuilder().maximumSize(10).build(),
+            StageMetrics.disabled()
+        );
+    }
+
     @Test
-    void whenClientNotExistThenFindByIdThrowException() {
+    void whenClientNotExistThenFindByIdFails() {
         final UUID randomId = UUID
             .fromString("7f000101-6e1f-192d-816e-1ffa54780000");
         when(clientRepository.findById(randomId)).thenReturn(Optional.empty());
+        assertEquals(
+            Failure.CLIENT_NOT_FOUND,
+            this.service.findById(randomId).getFailure()
+        );
+    }
+
+    @Test
+    void whenFindClientTwiceThenRepositoryIsQueriedOnce() {
+        final UUID clientId = UUID
+            .fromString("7f000101-6e1f-192d-816e-1ffa54780000");
+        final Client client = new Client(clientId, clientId, 0);
+        when(this.clientRepository.findById(clientId))
+            .thenReturn(Optional.of(client));
+        assertSame(client, this.service.findById(clientId).getValue());
+        assertSame(client, this.service.findById(clientId).getValue());
+        verify(this.clientRepository, times(1)).findById(clientId);
+    }
+
+    @Test
+    void whenClientNotFoundThenMissIsNotCached() {
+        final UUID clientId = UUID
+            .fromString("7f000101-6e1f-192d-816e-1ffa54780000");
+        final Client client = new Client(clientId, clientId, 0);
+        when(this.clientRepository.findById(clientId))
+            .thenReturn(Optional.empty())
+            .thenReturn(Optional.of(client));
+        assertEquals(
+            Failure.CLIENT_NOT_FOUND,
+            this.service.findById(clientId).getFailure()
+        );
+        assertSame(client, this.service.findById(clientId).getValue());
+    }
+
+    @Test
+    void whenSaveForDeletedClientThenClientNotFound() {
+        final UUID clientId = UUID
+            .fromString("7f000101-6e1f-192d-816e-1ffa54780000");
+        final Client client = new Client(clientId, clientId, 0);
+        when(this.clientRepository.findById(clientId))
+            .thenReturn(Optional.of(client))
+            .thenReturn(Optional.empty());
+        when(this.clientRepository.existsById(clientId)).thenReturn(false);
+        assertEquals(
+            Failure.CLIENT_NOT_FOUND,
+            this.service
+                .saveFor(
+                    clientId,
+                    found -> {
+                        throw new DataIntegrityViolationException("owner_id");
+                    }
+                )
+                .getFailure()
+        );
+        assertEquals(
+            Failure.CLIENT_NOT_FOUND,
+            this.service.findById(clientId).getFailure()
+        );
+    }
+
+    @Test
+    void whenSaveForExistingClientFailsThenErrorIsThrown() {
+        final UUID clientId = UUID
+            .fromString("7f000101-6e1f-192d-816e-1ffa54780000");
+        final Client client = new Client(clientId, clientId, 0);
+        when(this.clientRepository.findById(clientId))
+            .thenReturn(Optional.of(client));
+        when(this.clientRepository.existsById(clientId)).thenReturn(true);
         assertThrows(
-            ResponseStatusException.class,
-            () -> this.service.findById(randomId)
+            DataIntegrityViolationException.class,
+            () -> this.service.saveFor(
+                clientId,
+                found -> {
+                    throw new DataIntegrityViolationException("answer");
+                }
+            )
         );
     }
-}
\ No newline at end of file
+}
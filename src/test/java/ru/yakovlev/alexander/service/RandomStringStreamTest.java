@@ -117,4 +117,63 @@ class RandomStringStreamTest {
             assertTrue(added);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void whenNextSeveralThenReturnStringsWithCertainLength() {
+        final int length = 4;
+        final RandomStringStream stream = new RandomStringStream(
+            length, new char[]{'a', 'b', 'c'}, this.random
+        );
+        final String[] strings = stream.next(7);
+        assertEquals(7, strings.length);
+        for (final String string : strings) {
+            assertEquals(length, string.length());
+        }
+    }
+
+    @Test
+    void whenFillBufferSmallerThanStringsThenThrowException() {
+        final RandomStringStream stream = new RandomStringStream(
+            3, new char[]{'a', 'b'}, this.random
+        );
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> stream.fill(new char[5], 2)
+        );
+    }
+
+    @Test
+    void whenFillThenCharactersAreUniformlyDistributed() {
+        final char[] chars = {'a', 'b', 'c'};
+        final int count = 30_000;
+        final RandomStringStream stream = new RandomStringStream(
+            1, chars, this.random
+        );
+        final char[] buffer = new char[count];
+        stream.fill(buffer, count);
+        final int[] frequencies = new int[chars.length];
+        for (final char character : buffer) {
+            frequencies[character - 'a']++;
+        }
+        for (final int frequency : frequencies) {
+            assertTrue(Math.abs(frequency - count / chars.length) < count / 30);
+        }
+    }
+
+    @Test
+    void whenAlphabetLargerThanByteThenAllCharactersFromAlphabet() {
+        final char[] chars = new char[300];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) ('a' + i);
+        }
+        final RandomStringStream stream = new RandomStringStream(
+            1000, chars, this.random
+        );
+        stream
+            .next()
+            .chars()
+            .forEach(
+                (ch) -> assertTrue(ch >= 'a' && ch < 'a' + chars.length)
+            );
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.service;
+
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Rate limiter test.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+class RateLimiterTest {
+    private final UUID first = UUID
+        .fromString("7f000101-6e1f-192d-816e-1ffa54780000");
+    private final UUID second = UUID
+        .fromString("7f000101-6e1f-192d-816e-1ffa54780001");
+
+    @Test
+    void whenBurstIsSpentThenClientIsLimited() {
+        final RateLimiter limiter = new RateLimiter(0.001, 3, 10);
+        assertTrue(limiter.tryAcquire(this.first, 2));
+        assertTrue(limiter.tryAcquire(this.first, 1));
+        assertFalse(limiter.tryAcquire(this.first, 1));
+        assertTrue(limiter.tryAcquire(this.second, 3));
+    }
+
+    @Test
+    void whenPermitsExceedBurstThenFails() {
+        final RateLimiter limiter = new RateLimiter(0.001, 3, 10);
+        assertFalse(limiter.tryAcquire(this.first, 4));
+        assertTrue(limiter.tryAcquire(this.first, 3));
+    }
+
+    @Test
+    void whenRateIsZeroThenNotLimited() {
+        final RateLimiter limiter = new RateLimiter(0, 1, 10);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(limiter.tryAcquire(this.first, 100));
+        }
+    }
+
+    @Test
+    void whenAcquireConcurrentlyThenBurstIsNotExceeded()
+        throws InterruptedException {
+        final int burst = 100;
+        final RateLimiter limiter = new RateLimiter(0.001, burst, 10);
+        final AtomicInteger acquired = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < burst * 10; i++) {
+            executor.execute(
+                () -> {
+                    if (limiter.tryAcquire(this.first, 1)) {
+                        acquired.incrementAndGet();
+                    }
+                }
+            );
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(burst, acquired.get());
+    }
+
+    @Test
+    void whenRateIsNegativeThenThrows() {
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> new RateLimiter(-1, 1, 10)
+        );
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.service;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Replay filter test.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+class ReplayFilterTest {
+    private static final UUID CLIENT = UUID
+        .fromString("7f000101-6e1f-192d-816e-1ffa54780010");
+
+    @Test
+    void whenActivateTokenThenOnlyItIsActivated() {
+        try (ReplayFilter filter = new ReplayFilter(60, 1000)) {
+            filter.activate(CLIENT, 64L);
+            assertTrue(filter.activated(CLIENT, 64L));
+            assertFalse(filter.activated(CLIENT, 63L));
+            assertFalse(filter.activated(CLIENT, 65L));
+            assertFalse(filter.solved(CLIENT, 64L));
+        }
+    }
+
+    @Test
+    void whenIdsOfAnotherClientThenTheyAreNotKnown() {
+        final UUID other = UUID
+            .fromString("7f000101-6e1f-192d-816e-1ffa54780011");
+        try (ReplayFilter filter = new ReplayFilter(60, 1000)) {
+            filter.activate(CLIENT, 64L);
+            filter.solve(CLIENT, 64L);
+            assertFalse(filter.activated(other, 64L));
+            assertFalse(filter.solved(other, 64L));
+        }
+    }
+
+    @Test
+    void whenRotateOnceThenIdsAreRemembered() {
+        try (ReplayFilter filter = new ReplayFilter(60, 1000)) {
+            filter.activate(CLIENT, 1L);
+            filter.solve(CLIENT, Long.MAX_VALUE);
+            filter.rotate();
+            assertTrue(filter.activated(CLIENT, 1L));
+            assertTrue(filter.solved(CLIENT, Long.MAX_VALUE));
+        }
+    }
+
+    @Test
+    void whenRotateTwiceThenIdsAreForgotten() {
+        try (ReplayFilter filter = new ReplayFilter(60, 1000)) {
+            filter.activate(CLIENT, 1L);
+            filter.solve(CLIENT, 1L);
+            filter.rotate();
+            filter.rotate();
+            assertFalse(filter.activated(CLIENT, 1L));
+            assertFalse(filter.solved(CLIENT, 1L));
+        }
+    }
+
+    @Test
+    void whenFilterIsFullThenNewIdsAreNotRemembered() {
+        try (ReplayFilter filter = new ReplayFilter(60, 1)) {
+            filter.solve(CLIENT, 1L);
+            filter.solve(CLIENT, 1000L);
+            filter.solve(CLIENT, 2L);
+            assertTrue(filter.solved(CLIENT, 1L));
+            assertTrue(filter.solved(CLIENT, 2L));
+            assertFalse(filter.solved(CLIENT, 1000L));
+        }
+    }
+
+    @Test
+    void whenSizeIsZeroThenConstructorFails() {
+        assertThrows(
+            IllegalArgumentException.class, () -> new ReplayFilter(60, 0)
+        );
+    }
+}
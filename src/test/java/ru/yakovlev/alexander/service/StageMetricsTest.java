@@ -0,0 +1,82 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.yakovlev.alexander.model.Failure;
+import ru.yakovlev.alexander.model.Outcome;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Stage metrics test.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+class StageMetricsTest {
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final StageMetrics metrics = new StageMetrics(this.registry);
+
+    @Test
+    void whenTimeStageThenDurationIsRecordedWithStageTag() {
+        assertEquals("answer", this.metrics.time("draw", () -> "answer"));
+        this.metrics.time("draw", () -> "answer");
+        assertEquals(
+            2L,
+            this.registry
+                .get(StageMetrics.STAGE)
+                .tag("stage", "draw")
+                .timer()
+                .count()
+        );
+    }
+
+    @Test
+    void whenCountOutcomesThenFailuresAreCountedByName() {
+        final Outcome<String> failure = Outcome.failure(Failure.TIMEOUT_OVER);
+        assertSame(failure, this.metrics.count("token.create", failure));
+        this.metrics.count("token.create", Outcome.success("token"));
+        assertEquals(
+            1.0,
+            this.registry
+                .get(StageMetrics.OUTCOME)
+                .tags("operation", "token.create", "result", "timeout_over")
+                .counter()
+                .count()
+        );
+        assertEquals(
+            1.0,
+            this.registry
+                .get(StageMetrics.OUTCOME)
+                .tags("operation", "token.create", "result", StageMetrics.SUCCESS)
+                .counter()
+                .count()
+        );
+    }
+}
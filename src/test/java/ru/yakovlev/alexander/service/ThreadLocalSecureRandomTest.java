@@ -0,0 +1,83 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.service;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Thread local secure random test.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+class ThreadLocalSecureRandomTest {
+
+    @Test
+    void whenGetInSameThreadThenReturnSameGenerator()
+        throws NoSuchAlgorithmException {
+        final ThreadLocalSecureRandom random = new ThreadLocalSecureRandom(
+            "SHA1PRNG", 60
+        );
+        assertSame(random.get(), random.get());
+    }
+
+    @Test
+    void whenGetInDifferentThreadsThenReturnDifferentGenerators()
+        throws NoSuchAlgorithmException, ExecutionException,
+        InterruptedException {
+        final ThreadLocalSecureRandom random = new ThreadLocalSecureRandom(
+            "SHA1PRNG", 60
+        );
+        final SecureRandom other = CompletableFuture
+            .supplyAsync(random::get)
+            .get();
+        assertNotSame(other, random.get());
+    }
+
+    @Test
+    void whenAlgorithmUnknownThenThrowException() {
+        assertThrows(
+            NoSuchAlgorithmException.class,
+            () -> new ThreadLocalSecureRandom("unknown", 60)
+        );
+    }
+
+    @Test
+    void whenReseedIntervalLessThanOneThenThrowException() {
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> new ThreadLocalSecureRandom("SHA1PRNG", 0)
+        );
+    }
+}
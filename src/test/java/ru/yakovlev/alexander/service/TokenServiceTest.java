@@ -31,11 +31,14 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.web.server.ResponseStatusException;
 import ru.yakovlev.alexander.configuration.AppProperties;
-import ru.yakovlev.alexander.repository.VerificationTokenRepository;
+import ru.yakovlev.alexander.model.Client;
+import ru.yakovlev.alexander.model.Failure;
+import ru.yakovlev.alexander.model.Outcome;
+import ru.yakovlev.alexander.repository.TokenStore;
 
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 /**
@@ -51,25 +54,124 @@ class TokenServiceTest {
     @Mock
     private CaptchaService captchaService;
     @Mock
-    private VerificationTokenRepository tokenRepository;
+    private TokenStore tokenStore;
+    @Mock
+    private ReplayFilter replays;
+    @Mock
+    private RateLimiter rateLimiter;
 
     @Test
-    void whenFindByIdsWithFetchNotExistingTokenThenThrowException() {
+    void whenFindByIdsWithFetchNotExistingTokenThenFails() {
         final UUID clientId = UUID
             .fromString("7f000101-6e1f-192d-816e-1ffa54780000");
         final Long captchaId = 1L;
         final Long tokenId = 1L;
         final TokenService service = new TokenService(
             this.clientService, this.captchaService,
-            this.tokenRepository, new AppProperties()
+            this.tokenStore, this.replays,
+            this.rateLimiter, StageMetrics.disabled(), new AppProperties()
         );
         when(
-            this.tokenRepository
+            this.tokenStore
                 .findByIdsWithFetch(clientId, captchaId, tokenId)
         ).thenReturn(Optional.empty());
-        assertThrows(
-            ResponseStatusException.class,
-            () -> service.findByIdsWithFetch(clientId, captchaId, tokenId)
+        assertEquals(
+            Failure.TOKEN_NOT_FOUND,
+            service.findByIdsWithFetch(clientId, captchaId, tokenId).getFailure()
+        );
+    }
+
+    @Test
+    void whenActivateRecentlyActivatedTokenThenFailsWithoutStorage() {
+        final UUID clientId = UUID
+            .fromString("7f000101-6e1f-192d-816e-1ffa54780001");
+        final UUID secretKey = UUID
+            .fromString("7f000101-6e1f-192d-816e-1ffa54780002");
+        final Long captchaId = 2L;
+        final Long tokenId = 2L;
+        final TokenService service = new TokenService(
+            this.clientService, this.captchaService,
+            this.tokenStore, this.replays,
+            this.rateLimiter, StageMetrics.disabled(), new AppProperties()
         );
+        when(this.replays.activated(clientId, tokenId)).thenReturn(true);
+        when(this.clientService.findById(clientId))
+            .thenReturn(Outcome.success(new Client(clientId, secretKey, 0)));
+        assertEquals(
+            Failure.ALREADY_ACTIVATED,
+            service
+                .activate(clientId, captchaId, tokenId, secretKey)
+                .getFailure()
+        );
+        verifyNoMoreInteractions(this.tokenStore);
+    }
+
+    @Test
+    void whenAnotherClientActivatesRecentlyActivatedTokenThenStorageDecides() {
+        final UUID clientId = UUID
+            .fromString("7f000101-6e1f-192d-816e-1ffa54780003");
+        final UUID secretKey = UUID
+            .fromString("7f000101-6e1f-192d-816e-1ffa54780004");
+        final UUID otherId = UUID
+            .fromString("7f000101-6e1f-192d-816e-1ffa54780005");
+        final Long captchaId = 3L;
+        final Long tokenId = 3L;
+        final AppProperties properties = new AppProperties();
+        try (ReplayFilter filter = new ReplayFilter(60, 1000)) {
+            final TokenService service = new TokenService(
+                this.clientService, this.captchaService,
+                this.tokenStore, filter,
+                this.rateLimiter, StageMetrics.disabled(), properties
+            );
+            filter.activate(clientId, tokenId);
+            when(
+                this.tokenStore.activate(
+                    otherId, captchaId, tokenId, secretKey,
+                    properties.getCaptcha().getTimeout()
+                )
+            ).thenReturn(Outcome.failure(Failure.TOKEN_NOT_FOUND));
+            assertEquals(
+                Failure.TOKEN_NOT_FOUND,
+                service
+                    .activate(otherId, captchaId, tokenId, secretKey)
+                    .getFailure()
+            );
+        }
+    }
+
+    @Test
+    void whenActivateRecentlyActivatedTokenWithWrongKeyThenStorageDecides() {
+        final UUID clientId = UUID
+            .fromString("7f000101-6e1f-192d-816e-1ffa54780006");
+        final UUID secretKey = UUID
+            .fromString("7f000101-6e1f-192d-816e-1ffa54780007");
+        final UUID wrongKey = UUID
+            .fromString("7f000101-6e1f-192d-816e-1ffa54780008");
+        final Long captchaId = 4L;
+        final Long tokenId = 4L;
+        final AppProperties properties = new AppProperties();
+        try (ReplayFilter filter = new ReplayFilter(60, 1000)) {
+            final TokenService service = new TokenService(
+                this.clientService, this.captchaService,
+                this.tokenStore, filter,
+                this.rateLimiter, StageMetrics.disabled(), properties
+            );
+            filter.activate(clientId, tokenId);
+            when(this.clientService.findById(clientId)).thenReturn(
+                Outcome.success(new Client(clientId, secretKey, 0))
+            );
+            when(
+                this.tokenStore.activate(
+                    clientId, captchaId, tokenId, wrongKey,
+                    properties.getCaptcha().getTimeout()
+                )
+            ).thenReturn(Outcome.failure(Failure.WRONG_SECRET_KEY));
+            assertEquals(
+                Failure.WRONG_SECRET_KEY,
+                service
+                    .activate(clientId, captchaId, tokenId, wrongKey)
+                    .getFailure()
+            );
+        }
     }
-}
\ No newline at end of file
+}
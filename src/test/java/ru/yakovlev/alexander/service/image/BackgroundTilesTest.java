@@ -0,0 +1,77 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.service.image;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+
+import nl.captcha.backgrounds.FlatColorBackgroundProducer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Background tiles test.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+class BackgroundTilesTest {
+
+    @Test
+    void whenCreateWithoutTilesThenThrowException() {
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> new BackgroundTiles(
+                200, 50, 0, 60, new FlatColorBackgroundProducer(Color.RED)
+            )
+        );
+    }
+
+    @Test
+    void whenFillThenPixelsAreCopiedFromTile() {
+        try (BackgroundTiles tiles = new BackgroundTiles(
+            20, 10, 3, 60, new FlatColorBackgroundProducer(Color.RED)
+        )) {
+            final int[] pixels = new int[20 * 10];
+            tiles.fill(pixels);
+            for (final int pixel : pixels) {
+                assertEquals(0xFF0000, pixel);
+            }
+        }
+    }
+
+    @Test
+    void whenGetBackgroundOfImageSizeThenReturnRgbImage() {
+        try (BackgroundTiles tiles = new BackgroundTiles(
+            20, 10, 1, 60, new FlatColorBackgroundProducer(Color.BLUE)
+        )) {
+            final BufferedImage image = tiles.getBackground(20, 10);
+            assertEquals(BufferedImage.TYPE_INT_RGB, image.getType());
+            assertEquals(Color.BLUE.getRGB(), image.getRGB(19, 9));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.service.image;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Captcha image cache test.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+class CaptchaImageCacheTest {
+
+    @Test
+    void whenPutImageThenReturnSameImage() {
+        final EncodedImage image = new EncodedImage(new byte[]{1, 2, 3});
+        try (CaptchaImageCache cache = new CaptchaImageCache(60)) {
+            cache.put(1L, image);
+            final EncodedImage actual = cache.image(1L).orElseThrow();
+            assertArrayEquals(image.getContent(), actual.getContent());
+            assertEquals(image.getEtag(), actual.getEtag());
+        }
+    }
+
+    @Test
+    void whenImageNotStoredThenReturnEmpty() {
+        try (CaptchaImageCache cache = new CaptchaImageCache(60)) {
+            assertFalse(cache.image(2L).isPresent());
+        }
+    }
+
+    @Test
+    void whenCreateCacheWithTimeoutLessThanOneThenThrowException() {
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> new CaptchaImageCache(0)
+        );
+    }
+}
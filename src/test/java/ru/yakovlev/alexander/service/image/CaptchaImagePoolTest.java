@@ -0,0 +1,89 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.service.image;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import ru.yakovlev.alexander.service.RandomStringStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Captcha image pool test.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+class CaptchaImagePoolTest {
+    private static final byte[] PNG_SIGNATURE = {
+        (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'
+    };
+    private final RandomStringStream answers = new RandomStringStream(
+        5, new char[]{'a', 'b', 'c'}, SecureRandom.getInstance("SHA1PRNG")
+    );
+    private final CaptchaRenderer renderer = new SimpleCaptchaRenderer(
+        200, 50, new PngImageEncoder(4)
+    );
+
+    CaptchaImagePoolTest() throws NoSuchAlgorithmException {
+    }
+
+    @Test
+    void whenCreatePoolWithSizeLessThanOneThenThrowException() {
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> new CaptchaImagePool(0, 1, this.answers, this.renderer)
+        );
+    }
+
+    @Test
+    void whenCreatePoolWithoutRenderThreadsThenThrowException() {
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> new CaptchaImagePool(1, 0, this.answers, this.renderer)
+        );
+    }
+
+    @Test
+    void whenTakeThenReturnAnswerWithPngImage() {
+        try (CaptchaImagePool pool = new CaptchaImagePool(
+            2, 1, this.answers, this.renderer
+        )) {
+            final RenderedCaptcha captcha = pool.take();
+            assertEquals(5, captcha.getAnswer().length());
+            assertArrayEquals(
+                PNG_SIGNATURE,
+                Arrays.copyOf(
+                    captcha.getImage().getContent(), PNG_SIGNATURE.length
+                )
+            );
+        }
+    }
+}
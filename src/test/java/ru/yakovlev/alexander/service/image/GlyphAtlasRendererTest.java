@@ -0,0 +1,97 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.service.image;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import nl.captcha.backgrounds.SquigglesBackgroundProducer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.yakovlev.alexander.service.StageMetrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Glyph atlas renderer test.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+class GlyphAtlasRendererTest {
+    private final CaptchaRenderer fallback = mock(CaptchaRenderer.class);
+    private final BackgroundTiles tiles = new BackgroundTiles(
+        200, 50, 2, 60, new SquigglesBackgroundProducer()
+    );
+    private final CaptchaRenderer renderer = new GlyphAtlasRenderer(
+        200, 50, new char[]{'a', 'b', '7'}, this.tiles,
+        new PngImageEncoder(4), this.fallback, StageMetrics.disabled()
+    );
+
+    @AfterEach
+    void tearDown() {
+        this.tiles.close();
+    }
+
+    @Test
+    void whenRenderAnswerOfAlphabetThenReturnImageOfConfiguredSize()
+        throws IOException {
+        final RenderedCaptcha captcha = this.renderer.render("ab7ba");
+        final BufferedImage image = ImageIO.read(
+            new ByteArrayInputStream(captcha.getImage().getContent())
+        );
+        assertEquals("ab7ba", captcha.getAnswer());
+        assertEquals(200, image.getWidth());
+        assertEquals(50, image.getHeight());
+        verifyZeroInteractions(this.fallback);
+    }
+
+    @Test
+    void whenRenderAnswerOutOfAlphabetThenFallbackIsUsed() {
+        final RenderedCaptcha expected = new RenderedCaptcha(
+            "abc", new EncodedImage(new byte[0])
+        );
+        when(this.fallback.render("abc")).thenReturn(expected);
+        assertSame(expected, this.renderer.render("abc"));
+    }
+
+    @Test
+    void whenCreateWithEmptyAlphabetThenThrowException() {
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> new GlyphAtlasRenderer(
+                200, 50, new char[0], this.tiles, new PngImageEncoder(4),
+                this.fallback, StageMetrics.disabled()
+            )
+        );
+    }
+}
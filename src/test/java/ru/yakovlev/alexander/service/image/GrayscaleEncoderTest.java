@@ -0,0 +1,105 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.service.image;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Grayscale image encoder test.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+class GrayscaleEncoderTest {
+    private final ImageEncoder png = new PngImageEncoder(6);
+
+    @Test
+    void whenEncodeGrayThenDecodedImageHasGraySamples() throws IOException {
+        final BufferedImage decoded = this.decode(
+            new GrayscaleEncoder(this.png, 8).encode(this.image())
+        );
+        assertEquals(8, decoded.getColorModel().getPixelSize());
+        assertEquals(0x000000, decoded.getRGB(3, 7) & 0xFFFFFF);
+        assertEquals(0xFFFFFF, decoded.getRGB(4, 7) & 0xFFFFFF);
+    }
+
+    @Test
+    void whenEncodeIndexedThenDecodedImageHasPaletteOfGrays()
+        throws IOException {
+        final BufferedImage decoded = this.decode(
+            new GrayscaleEncoder(this.png, 2).encode(this.image())
+        );
+        assertEquals(2, decoded.getColorModel().getPixelSize());
+        assertEquals(20, decoded.getWidth());
+        assertEquals(0x000000, decoded.getRGB(3, 7) & 0xFFFFFF);
+        assertEquals(0xFFFFFF, decoded.getRGB(4, 7) & 0xFFFFFF);
+        assertEquals(0x555555, decoded.getRGB(5, 7) & 0xFFFFFF);
+    }
+
+    @Test
+    void whenEncodeIndexedThenImageIsSmallerThanTruecolor() {
+        final BufferedImage image = this.image();
+        assertTrue(
+            new GrayscaleEncoder(this.png, 4).encode(image).length
+                < this.png.encode(image).length
+        );
+    }
+
+    @Test
+    void whenBitsAreNotSupportedThenThrowException() {
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> new GrayscaleEncoder(this.png, 3)
+        );
+    }
+
+    private BufferedImage image() {
+        final BufferedImage image = new BufferedImage(
+            20, 10, BufferedImage.TYPE_INT_RGB
+        );
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, (x * 37 + y * 91) % 256 * 0x010101);
+            }
+        }
+        image.setRGB(3, 7, 0x000000);
+        image.setRGB(4, 7, 0xFFFFFF);
+        image.setRGB(5, 7, 0x555555);
+        return image;
+    }
+
+    private BufferedImage decode(final byte[] encoded) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(encoded));
+    }
+}
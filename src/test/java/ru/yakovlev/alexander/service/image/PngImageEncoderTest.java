@@ -0,0 +1,80 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.service.image;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * PNG image encoder test.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+class PngImageEncoderTest {
+
+    @Test
+    void whenEncodeThenDecodedImageHasSamePixels() throws IOException {
+        final BufferedImage image = new BufferedImage(
+            20, 10, BufferedImage.TYPE_INT_RGB
+        );
+        image.setRGB(3, 7, 0xFF00FF);
+        final byte[] encoded = new PngImageEncoder(6).encode(image);
+        final BufferedImage decoded = ImageIO.read(
+            new ByteArrayInputStream(encoded)
+        );
+        assertEquals(image.getWidth(), decoded.getWidth());
+        assertEquals(image.getHeight(), decoded.getHeight());
+        assertEquals(0xFF00FF, decoded.getRGB(3, 7) & 0xFFFFFF);
+    }
+
+    @Test
+    void whenCompressionLevelIsHigherThenImageIsNotLarger() {
+        final BufferedImage image = new BufferedImage(
+            200, 50, BufferedImage.TYPE_INT_RGB
+        );
+        final int none = new PngImageEncoder(0).encode(image).length;
+        final int best = new PngImageEncoder(9).encode(image).length;
+        assertTrue(best <= none);
+    }
+
+    @Test
+    void whenCompressionLevelOutOfRangeThenThrowException() {
+        assertThrows(
+            IllegalArgumentException.class, () -> new PngImageEncoder(-1)
+        );
+        assertThrows(
+            IllegalArgumentException.class, () -> new PngImageEncoder(10)
+        );
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.service.signed;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Replay guard test.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+class ReplayGuardTest {
+
+    @Test
+    void whenUseTwiceThenSecondUseFails() {
+        final UUID nonce = UUID.randomUUID();
+        try (ReplayGuard guard = new ReplayGuard(60)) {
+            assertTrue(guard.use(nonce));
+            assertFalse(guard.use(nonce));
+            assertTrue(guard.used(nonce));
+        }
+    }
+
+    @Test
+    void whenRotateOnceThenNonceIsRemembered() {
+        final UUID nonce = UUID.randomUUID();
+        try (ReplayGuard guard = new ReplayGuard(60)) {
+            guard.use(nonce);
+            guard.rotate();
+            assertFalse(guard.use(nonce));
+        }
+    }
+
+    @Test
+    void whenRotateTwiceThenNonceIsForgotten() {
+        final UUID nonce = UUID.randomUUID();
+        try (ReplayGuard guard = new ReplayGuard(60)) {
+            guard.use(nonce);
+            guard.rotate();
+            guard.rotate();
+            assertFalse(guard.used(nonce));
+        }
+    }
+}
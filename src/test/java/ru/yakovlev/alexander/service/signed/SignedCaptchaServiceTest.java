@@ -0,0 +1,250 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.alexander.service.signed;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.yakovlev.alexander.configuration.AppProperties;
+import ru.yakovlev.alexander.model.Client;
+import ru.yakovlev.alexander.model.Failure;
+import ru.yakovlev.alexander.model.Outcome;
+import ru.yakovlev.alexander.model.dto.CaptchaCheckResult;
+import ru.yakovlev.alexander.service.ClientService;
+import ru.yakovlev.alexander.service.RateLimiter;
+import ru.yakovlev.alexander.service.ThreadLocalSecureRandom;
+import ru.yakovlev.alexander.service.image.CaptchaImagePool;
+import ru.yakovlev.alexander.service.image.EncodedImage;
+import ru.yakovlev.alexander.service.image.RenderedCaptcha;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.when;
+
+/**
+ * Signed captcha service test.
+ *
+ * @author Yakovlev Alexander (sanyakovlev@yandex.ru)
+ * @since 0.1
+ */
+@ExtendWith(MockitoExtension.class)
+class SignedCaptchaServiceTest {
+    private final Client client = new Client(
+        UUID.fromString("7f000101-6e06-121f-816e-06ce2f660000"),
+        UUID.fromString("7f000101-6e06-121f-816e-06ce2f660001"),
+        0
+    );
+    @Mock
+    private ClientService clientService;
+    @Mock
+    private CaptchaImagePool imagePool;
+    private ReplayGuard replays;
+    private SignedCaptchaService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        this.replays = new ReplayGuard(60);
+        this.service = this.service(
+            new RateLimiter(0, 1, 10), new RateLimiter(0, 1, 10)
+        );
+        when(this.clientService.findById(this.client.getId()))
+            .thenReturn(Outcome.success(this.client));
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.replays.close();
+    }
+
+    @Test
+    void whenActivateRightAnswerThenSuccess() {
+        final String token = this.solve("abcdef");
+        assertSame(
+            CaptchaCheckResult.SUCCESS,
+            this.service
+                .activate(this.client.getId(), token, this.client.getSecret())
+                .getValue()
+        );
+    }
+
+    @Test
+    void whenActivateWrongAnswerThenCheckIsNotSuccess() {
+        final String token = this.solve("abcdeg");
+        assertFalse(
+            this.service
+                .activate(this.client.getId(), token, this.client.getSecret())
+                .getValue()
+                .isSuccess()
+        );
+    }
+
+    @Test
+    void whenActivateTwiceThenAlreadyActivated() {
+        final String token = this.solve("abcdef");
+        this.service.activate(
+            this.client.getId(), token, this.client.getSecret()
+        );
+        assertEquals(
+            Failure.ALREADY_ACTIVATED,
+            this.service
+                .activate(this.client.getId(), token, this.client.getSecret())
+                .getFailure()
+        );
+    }
+
+    @Test
+    void whenActivateWithWrongKeyThenFails() {
+        final String token = this.solve("abcdef");
+        assertEquals(
+            Failure.WRONG_SECRET_KEY,
+            this.service
+                .activate(this.client.getId(), token, this.client.getId())
+                .getFailure()
+        );
+    }
+
+    @Test
+    void whenSolveTamperedHandleThenCaptchaNotFound() {
+        final String handle = this.create();
+        final char replaced = handle.charAt(10) == 'A' ? 'B' : 'A';
+        assertEquals(
+            Failure.CAPTCHA_NOT_FOUND,
+            this.service
+                .solve(
+                    this.client.getId(),
+                    handle.substring(0, 10) + replaced + handle.substring(11),
+                    "abcdef"
+                )
+                .getFailure()
+        );
+    }
+
+    @Test
+    void whenActivateCaptchaHandleAsTokenThenTokenNotFound() {
+        assertEquals(
+            Failure.TOKEN_NOT_FOUND,
+            this.service
+                .activate(
+                    this.client.getId(), this.create(), this.client.getSecret()
+                )
+                .getFailure()
+        );
+    }
+
+    @Test
+    void whenSolveSolvedCaptchaThenAlreadySolved() {
+        final String handle = this.create();
+        this.service.activate(
+            this.client.getId(),
+            this.service.solve(this.client.getId(), handle, "abcdef").getValue(),
+            this.client.getSecret()
+        );
+        assertEquals(
+            Failure.ALREADY_SOLVED,
+            this.service
+                .solve(this.client.getId(), handle, "abcdef")
+                .getFailure()
+        );
+    }
+
+    @Test
+    void whenSolveTwiceThenAlreadySolved() {
+        final String handle = this.create();
+        this.service.solve(this.client.getId(), handle, "abcdeg");
+        assertEquals(
+            Failure.ALREADY_SOLVED,
+            this.service
+                .solve(this.client.getId(), handle, "abcdef")
+                .getFailure()
+        );
+    }
+
+    @Test
+    void whenCreateOverRateThenRateLimited() {
+        this.service = this.service(
+            new RateLimiter(0.001, 1, 10), new RateLimiter(0, 1, 10)
+        );
+        this.create();
+        assertEquals(
+            Failure.RATE_LIMITED,
+            this.service.createNew(this.client.getId()).getFailure()
+        );
+    }
+
+    @Test
+    void whenSolveOverRateThenRateLimited() {
+        this.service = this.service(
+            new RateLimiter(0, 1, 10), new RateLimiter(0.001, 1, 10)
+        );
+        this.solve("abcdef");
+        assertEquals(
+            Failure.RATE_LIMITED,
+            this.service
+                .solve(this.client.getId(), this.create(), "abcdef")
+                .getFailure()
+        );
+    }
+
+    @Test
+    void whenSolveThenTokenDoesNotShowResult() {
+        final String right = this.solve("abcdef");
+        final String wrong = this.solve("abcdeg");
+        assertEquals(right.length(), wrong.length());
+        assertFalse(
+            new HandleSigner(new byte[32]).verify(wrong).isPresent()
+        );
+    }
+
+    private SignedCaptchaService service(
+        final RateLimiter captchaLimits, final RateLimiter solveLimits
+    ) throws Exception {
+        return new SignedCaptchaService(
+            this.clientService, this.imagePool,
+            new HandleSigner(new byte[32]), this.replays,
+            new ThreadLocalSecureRandom("SHA1PRNG", 300),
+            captchaLimits, solveLimits,
+            new AppProperties.Captcha(6, "[a-z]", 60, 100)
+        );
+    }
+
+    private String create() {
+        when(this.imagePool.take()).thenReturn(
+            new RenderedCaptcha("abcdef", new EncodedImage(new byte[]{1}))
+        );
+        return this.service.createNew(this.client.getId()).getValue().getHandle();
+    }
+
+    private String solve(final String answer) {
+        return this.service
+            .solve(this.client.getId(), this.create(), answer)
+            .getValue();
+    }
+}